@@ -20,6 +20,9 @@ import me.val_mobile.data.ModuleItems;
 import me.val_mobile.data.ModuleRecipes;
 import me.val_mobile.data.RSVConfig;
 import me.val_mobile.data.RSVModule;
+import me.val_mobile.data.baubles.BaubleRecord;
+import me.val_mobile.data.baubles.BaubleRecordCodec;
+import me.val_mobile.data.storage.PlayerDataStorage;
 import me.val_mobile.iceandfire.IceFireModule;
 import me.val_mobile.rsv.RSVPlugin;
 import me.val_mobile.utils.Utils;
@@ -36,7 +39,8 @@ public class BaubleModule extends RSVModule {
 
     public static final String NAME = "Baubles";
 
-    private final RSVConfig config;
+    private BaubleRecordCodec playerDataCodec;
+    private PlayerDataStorage<BaubleRecord> playerDataStorage;
     private WormholeInventory inv;
     private BaubleEvents events;
     private final Collection<UUID> brokenHeartPlayers = new ArrayList<>();
@@ -44,7 +48,6 @@ public class BaubleModule extends RSVModule {
     public BaubleModule(RSVPlugin plugin) {
         super(NAME, plugin, Map.of(), Map.of(RSVModule.getModule(IceFireModule.NAME), "Detected disabled Ice and Fire module. Dragon's eye recipe will be partially disabled."));
         this.plugin = plugin;
-        this.config = new RSVConfig(plugin, "resources/baubles/playerdata.yml");
     }
 
     @Override
@@ -52,6 +55,8 @@ public class BaubleModule extends RSVModule {
         setUserConfig(new RSVConfig(plugin, "baubles.yml"));
         setItemConfig(new RSVConfig(plugin, "resources/baubles/items.yml"));
         setRecipeConfig(new RSVConfig(plugin, "resources/baubles/recipes.yml"));
+        this.playerDataCodec = new BaubleRecordCodec();
+        this.playerDataStorage = PlayerDataStorage.open(plugin, "baubles", playerDataCodec);
         setModuleItems(new ModuleItems(this));
         setModuleRecipes(new ModuleRecipes(this, plugin));
 
@@ -79,10 +84,16 @@ public class BaubleModule extends RSVModule {
 
             plugin.getLogger().info(message);
         }
+
+        playerDataStorage.close();
+    }
+
+    public PlayerDataStorage<BaubleRecord> getPlayerDataStorage() {
+        return playerDataStorage;
     }
 
-    public RSVConfig getPlayerDataConfig() {
-        return config;
+    public BaubleRecordCodec getPlayerDataCodec() {
+        return playerDataCodec;
     }
 
     public Collection<UUID> getBrokenHeartPlayers() {
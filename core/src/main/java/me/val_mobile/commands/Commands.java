@@ -18,6 +18,7 @@ package me.val_mobile.commands;
 
 import me.val_mobile.data.RSVConfig;
 import me.val_mobile.data.RSVModule;
+import me.val_mobile.data.RSVPlayer;
 import me.val_mobile.iceandfire.IceFireModule;
 import me.val_mobile.rsv.RSVPlugin;
 import me.val_mobile.tan.*;
@@ -829,6 +830,24 @@ public class Commands implements CommandExecutor {
                     }
                     return true;
                 }
+                case "sessions" -> {
+                    if (!sender.hasPermission("realisticsurvival.command.sessions")) {
+                        // send the player a message explaining that he/she does not have permission to execute the command
+                        sendNoPermissionMessage(sender);
+                        return true;
+                    }
+                    long hits = RSVPlayer.getSessionHits();
+                    long total = hits + RSVPlayer.getSessionMisses();
+
+                    Map<String, Object> placeholders = Map.of(
+                            "ONLINE_SESSIONS", RSVPlayer.getPlayers().size(),
+                            "RECENT_SESSIONS", RSVPlayer.getRecentCount(),
+                            "HITS", hits,
+                            "JOINS", total,
+                            "HIT_RATE", total == 0 ? "0.0%" : String.format("%.1f%%", hits * 100D / total));
+                    sender.sendMessage(Utils.translateMsg(config.getString("Sessions", "&6[Realistic Survival] &fSessions: %ONLINE_SESSIONS% online, %RECENT_SESSIONS% recently left, %HIT_RATE% of %JOINS% joins reused a cached session"), sender, placeholders));
+                    return true;
+                }
                 case "help" -> {
                     if (!sender.hasPermission("realisticsurvival.command.help")) {
                         // send the player a message explaining that he/she does not have permission to execute the command
@@ -0,0 +1,111 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data;
+
+import me.val_mobile.rsv.RSVPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Saves config files in the background. Every save requested during a tick is merged into one
+ * write per file, which happens off the main thread through a temporary file so a crash never
+ * leaves a half written config behind.
+ * Configs are turned into text on the main thread since they may still be changed there
+ */
+public class ConfigWriter {
+
+    private static final Map<File, FileConfiguration> pending = new LinkedHashMap<>();
+    private static final Map<File, String> serialized = new ConcurrentHashMap<>();
+    private static boolean scheduled = false;
+
+    /**
+     * Queues a config to be saved at the end of the tick, must be called on the main thread
+     * @param config The config
+     * @param file The file to save it to
+     */
+    public static void save(@Nonnull FileConfiguration config, @Nonnull File file) {
+        RSVPlugin plugin = RSVPlugin.getPlugin();
+
+        pending.put(file, config);
+
+        if (!plugin.isEnabled()) {
+            // the scheduler can no longer be used while the plugin shuts down
+            flush();
+        }
+        else if (!scheduled) {
+            scheduled = true;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                serializePending();
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, ConfigWriter::writeSerialized);
+            });
+        }
+    }
+
+    /**
+     * Writes every queued config right away, must be called on the main thread
+     */
+    public static void flush() {
+        serializePending();
+        writeSerialized();
+    }
+
+    private static void serializePending() {
+        for (Map.Entry<File, FileConfiguration> entry : pending.entrySet()) {
+            serialized.put(entry.getKey(), entry.getValue().saveToString());
+        }
+        pending.clear();
+        scheduled = false;
+    }
+
+    private static synchronized void writeSerialized() {
+        for (File file : serialized.keySet()) {
+            String contents = serialized.remove(file);
+
+            if (contents != null) {
+                try {
+                    writeAtomically(file.toPath(), contents);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes to a temporary file first and then renames it, so a crash never leaves a half written file behind
+     * @param path The file to write
+     * @param contents The new contents of the file
+     */
+    public static void writeAtomically(@Nonnull Path path, @Nonnull String contents) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, contents, StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
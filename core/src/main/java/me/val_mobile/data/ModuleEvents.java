@@ -47,7 +47,6 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.PluginManager;
 
 import javax.annotation.Nullable;
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Set;
 
@@ -203,11 +202,7 @@ public abstract class ModuleEvents implements Listener {
                 pluginConfig.set(path, true);
                 module.getAllowedWorlds().add(name);
 
-                try {
-                    pluginConfig.save(plugin.getConfigFile());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                ConfigWriter.save(pluginConfig, plugin.getConfigFile());
             }
         }
     }
@@ -225,11 +220,7 @@ public abstract class ModuleEvents implements Listener {
                 pluginConfig.set(path, true);
                 module.getAllowedWorlds().add(name);
 
-                try {
-                    pluginConfig.save(plugin.getConfigFile());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                ConfigWriter.save(pluginConfig, plugin.getConfigFile());
             }
         }
     }
@@ -247,11 +238,7 @@ public abstract class ModuleEvents implements Listener {
                 pluginConfig.set(path, true);
                 module.getAllowedWorlds().add(name);
 
-                try {
-                    pluginConfig.save(plugin.getConfigFile());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                ConfigWriter.save(pluginConfig, plugin.getConfigFile());
             }
         }
     }
@@ -269,11 +256,7 @@ public abstract class ModuleEvents implements Listener {
                 pluginConfig.set(path, true);
                 module.getAllowedWorlds().add(name);
 
-                try {
-                    pluginConfig.save(plugin.getConfigFile());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                ConfigWriter.save(pluginConfig, plugin.getConfigFile());
             }
         }
     }
@@ -0,0 +1,461 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data;
+
+import me.val_mobile.baubles.BaubleModule;
+import me.val_mobile.data.baubles.BaubleRecord;
+import me.val_mobile.data.storage.PlayerDataStorage;
+import me.val_mobile.data.storage.PlayerRecord;
+import me.val_mobile.data.storage.RecordCodec;
+import me.val_mobile.data.toughasnails.DataModule;
+import me.val_mobile.data.toughasnails.TanRecord;
+import me.val_mobile.rsv.RSVPlugin;
+import me.val_mobile.tan.TanModule;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind flusher for player data. Data modules only change their in-memory
+ * state and mark themselves dirty; this task snapshots the dirty players on the
+ * main thread and writes them off the main thread. Every autosave and every quit is
+ * appended to a journal, and the journaled records are only written into the module
+ * storages every few autosaves, so a crash loses at most one autosave. Records that
+ * are not in the storages yet are read through {@link #load(UUID)}. When another server
+ * changed a player's data in the meantime, this server's records are kept in a separate
+ * conflicts journal and the player is not saved again until their data is read anew
+ */
+public class PlayerDataFlushTask extends BukkitRunnable {
+
+    private final RSVPlugin plugin;
+    private final TanModule tanModule;
+    private final BaubleModule baubleModule;
+    private final PlayerDataJournal journal;
+    private final PlayerDataJournal conflicts;
+    private final int compactInterval;
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+    private final Map<UUID, TanRecord> pendingTan = new ConcurrentHashMap<>();
+    private final Map<UUID, BaubleRecord> pendingBaubles = new ConcurrentHashMap<>();
+    // only changed under the lock, but read by peek without it
+    private final Map<UUID, TanRecord> journaledTan = new ConcurrentHashMap<>();
+    private final Map<UUID, BaubleRecord> journaledBaubles = new ConcurrentHashMap<>();
+    private final Set<UUID> disowned = ConcurrentHashMap.newKeySet();
+    private int autosavesSinceCompaction = 0;
+
+    public PlayerDataFlushTask(RSVPlugin plugin) {
+        this.plugin = plugin;
+        this.tanModule = (TanModule) RSVModule.getModule(TanModule.NAME);
+        this.baubleModule = (BaubleModule) RSVModule.getModule(BaubleModule.NAME);
+        this.compactInterval = Math.max(1, plugin.getConfig().getInt("PlayerData.CompactInterval", 6));
+
+        PlayerDataJournal journal = null;
+        try {
+            journal = new PlayerDataJournal(new File(plugin.getDataFolder(), "resources/playerdata.journal"));
+            replay(journal);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not open the player data journal, player data will be written directly");
+            e.printStackTrace();
+        }
+        this.journal = journal;
+
+        PlayerDataJournal conflicts = null;
+        try {
+            conflicts = new PlayerDataJournal(new File(plugin.getDataFolder(), "resources/playerdata.conflicts"));
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not open the player data conflicts journal");
+            e.printStackTrace();
+        }
+        this.conflicts = conflicts;
+    }
+
+    @Override
+    public void run() {
+        for (RSVPlayer player : RSVPlayer.getPlayers().values()) {
+            queue(player, true);
+        }
+
+        // if the disk is slow, the next autosave is merged into the pending records instead of piling up more writes
+        if (hasPending() && writing.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                try {
+                    write(false);
+                } finally {
+                    writing.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Queues a single player's data and writes it in the background, used when a player quits
+     * @param player The player whose data should be written
+     */
+    public void flush(@Nonnull RSVPlayer player) {
+        queue(player, false);
+
+        UUID id = player.getUuid();
+        SessionLeases leases = plugin.getSessionLeases();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            // another server only reads the storages, so the player has to be written there before handing them over
+            write(id, leases.isEnabled());
+            release(id);
+            leases.release(id);
+        });
+    }
+
+    /**
+     * @param onlyDirty Whether unchanged players should be skipped
+     */
+    private void queue(@Nonnull RSVPlayer player, boolean onlyDirty) {
+        if (disowned.contains(player.getUuid())) {
+            return;
+        }
+
+        DataModule tanData = player.getTanDataModule();
+        if (tanData != null && tanData.isDirty()) {
+            queue(tanData.getStorage(), tanData.snapshot(), pendingTan);
+        }
+
+        me.val_mobile.data.baubles.DataModule baubleData = player.getBaubleDataModule();
+        if (baubleData != null && (!onlyDirty || baubleData.isDirty())) {
+            queue(baubleData.getStorage(), baubleData.snapshot(), pendingBaubles);
+        }
+    }
+
+    private static <T extends PlayerRecord> void queue(@Nonnull PlayerDataStorage<T> storage, @Nonnull T record, @Nonnull Map<UUID, T> pending) {
+        if (storage.isThreadSafe()) {
+            // a newer snapshot simply replaces one that has not been written yet
+            pending.put(record.id(), record);
+        }
+        else {
+            // storages tied to the main thread only keep the data in memory, so they are cheap to write right away
+            storage.save(List.of(record));
+        }
+    }
+
+    private boolean hasPending() {
+        return !pendingTan.isEmpty() || !pendingBaubles.isEmpty();
+    }
+
+    /**
+     * Reads a player's data, preferring records that were queued or journaled but are not in the storages yet.
+     * Waits for a write that is already in progress to finish, so a quick rejoin never reads older data than what was last queued
+     * @param id The player's UUID
+     * @return The player's latest data
+     */
+    @Nonnull
+    public synchronized PreloadedPlayerData load(@Nonnull UUID id) {
+        PreloadedPlayerData data = PreloadedPlayerData.load(id);
+        // the storages were just read, so this server owns the player's data again
+        disowned.remove(id);
+
+        if (data.changedElsewhere()) {
+            // records this server did not write yet are older than what another server saved since
+            keepConflicts(tanModule, tanModule == null ? null : tanModule.getPlayerDataCodec(), Set.of(id), only(id, pendingTan));
+            keepConflicts(tanModule, tanModule == null ? null : tanModule.getPlayerDataCodec(), Set.of(id), only(id, journaledTan));
+            keepConflicts(baubleModule, baubleModule == null ? null : baubleModule.getPlayerDataCodec(), Set.of(id), only(id, pendingBaubles));
+            keepConflicts(baubleModule, baubleModule == null ? null : baubleModule.getPlayerDataCodec(), Set.of(id), only(id, journaledBaubles));
+            return data;
+        }
+
+        return new PreloadedPlayerData(id,
+                latest(id, data.tan(), pendingTan, journaledTan),
+                latest(id, data.baubles(), pendingBaubles, journaledBaubles),
+                data.changedElsewhere());
+    }
+
+    /**
+     * Reads a player's data like {@link #load(UUID)}, but without waiting for a write in progress, so it can be used on
+     * the main thread. Only waits when another server saved the player since, since this server's records then have to be sorted out
+     * @param id The player's UUID
+     * @return The player's latest data
+     */
+    @Nonnull
+    public PreloadedPlayerData peek(@Nonnull UUID id) {
+        if (!isUpToDate(id)) {
+            return load(id);
+        }
+
+        // a record is put into the next place before it is removed from the last, pending then journaled then the
+        // storage, so reading in that order finds the latest one even while it is being written
+        TanRecord tan = latest(id, null, pendingTan, journaledTan);
+        BaubleRecord baubles = latest(id, null, pendingBaubles, journaledBaubles);
+        PreloadedPlayerData data = PreloadedPlayerData.load(id);
+
+        return new PreloadedPlayerData(id, tan == null ? data.tan() : tan, baubles == null ? data.baubles() : baubles, data.changedElsewhere());
+    }
+
+    private boolean isUpToDate(@Nonnull UUID id) {
+        return (tanModule == null || tanModule.getPlayerDataStorage().isUpToDate(id)) && (baubleModule == null || baubleModule.getPlayerDataStorage().isUpToDate(id));
+    }
+
+    @Nullable
+    private static <T extends PlayerRecord> T latest(@Nonnull UUID id, @Nullable T stored, @Nonnull Map<UUID, T> pending, @Nonnull Map<UUID, T> journaled) {
+        // records from storages that are not preloaded are saved right away and never end up in either map
+        T record = pending.get(id);
+        if (record == null) {
+            record = journaled.get(id);
+        }
+        return record == null ? stored : record;
+    }
+
+    /**
+     * Journals a single player's queued records without touching anyone else's
+     * @param id The player's UUID
+     * @param save Whether the player's records should also be written into the storages right away
+     */
+    private synchronized void write(@Nonnull UUID id, boolean save) {
+        boolean tanJournaled = journal(tanModule, tanModule == null ? null : tanModule.getPlayerDataCodec(), tanModule == null ? null : tanModule.getPlayerDataStorage(), Set.of(id), pendingTan, journaledTan);
+        boolean baublesJournaled = journal(baubleModule, baubleModule == null ? null : baubleModule.getPlayerDataCodec(), baubleModule == null ? null : baubleModule.getPlayerDataStorage(), Set.of(id), pendingBaubles, journaledBaubles);
+
+        if (save || !tanJournaled) {
+            save(id, tanModule, tanModule == null ? null : tanModule.getPlayerDataCodec(), tanModule == null ? null : tanModule.getPlayerDataStorage(), journaledTan);
+        }
+        if (save || !baublesJournaled) {
+            save(id, baubleModule, baubleModule == null ? null : baubleModule.getPlayerDataCodec(), baubleModule == null ? null : baubleModule.getPlayerDataStorage(), journaledBaubles);
+        }
+    }
+
+    /**
+     * Writes a single player's journaled record into a storage, it stays in the journaled records until it is written
+     */
+    private <T extends PlayerRecord> void save(@Nonnull UUID id, @Nullable RSVModule module, @Nullable RecordCodec<T> codec, @Nullable PlayerDataStorage<T> storage, @Nonnull Map<UUID, T> journaled) {
+        T record = journaled.get(id);
+
+        if (record != null) {
+            save(module, codec, storage, new HashMap<>(Map.of(id, record)));
+            journaled.remove(id, record);
+        }
+    }
+
+    /**
+     * Drops what the storages remember about a player who left, once their last records were written
+     * @param id The player's UUID
+     */
+    private synchronized void release(@Nonnull UUID id) {
+        if (tanModule != null) {
+            tanModule.getPlayerDataStorage().release(id);
+        }
+        if (baubleModule != null) {
+            baubleModule.getPlayerDataStorage().release(id);
+        }
+    }
+
+    /**
+     * Moves a player's record out of a map
+     * @return A map holding only the player's record, or nothing if there was none
+     */
+    @Nonnull
+    private static <T extends PlayerRecord> Map<UUID, T> only(@Nonnull UUID id, @Nonnull Map<UUID, T> records) {
+        Map<UUID, T> only = new HashMap<>();
+        T record = records.remove(id);
+
+        if (record != null) {
+            only.put(id, record);
+        }
+        return only;
+    }
+
+    private synchronized void write(boolean compact) {
+        boolean tanJournaled = journal(tanModule, tanModule == null ? null : tanModule.getPlayerDataCodec(), tanModule == null ? null : tanModule.getPlayerDataStorage(), pendingTan.keySet(), pendingTan, journaledTan);
+        boolean baublesJournaled = journal(baubleModule, baubleModule == null ? null : baubleModule.getPlayerDataCodec(), baubleModule == null ? null : baubleModule.getPlayerDataStorage(), pendingBaubles.keySet(), pendingBaubles, journaledBaubles);
+
+        autosavesSinceCompaction++;
+
+        if (compact || !tanJournaled || !baublesJournaled || autosavesSinceCompaction >= compactInterval) {
+            compact();
+        }
+    }
+
+    /**
+     * Moves pending records into the journal
+     * @param ids The players whose pending records are moved
+     * @return False if the journal could not be written, the records then have to be written to the storage right away
+     */
+    private <T extends PlayerRecord> boolean journal(@Nullable RSVModule module, @Nullable RecordCodec<T> codec, @Nullable PlayerDataStorage<T> storage, @Nonnull Collection<UUID> ids, @Nonnull Map<UUID, T> pending, @Nonnull Map<UUID, T> journaled) {
+        if (module == null || codec == null || storage == null || !module.isGloballyEnabled()) {
+            pending.keySet().removeAll(List.copyOf(ids));
+            return true;
+        }
+
+        List<T> records = new ArrayList<>();
+        for (UUID id : List.copyOf(ids)) {
+            T record = pending.get(id);
+
+            if (record != null) {
+                records.add(record);
+                journaled.put(id, record);
+                // a newer snapshot queued meanwhile stays pending
+                pending.remove(id, record);
+            }
+        }
+
+        if (journal == null) {
+            return false;
+        }
+
+        try {
+            journal.append(module.getName(), codec, records, storage::getVersion);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Writes every journaled record into the storages and empties the journal
+     */
+    private void compact() {
+        save(tanModule, tanModule == null ? null : tanModule.getPlayerDataCodec(), tanModule == null ? null : tanModule.getPlayerDataStorage(), journaledTan);
+        save(baubleModule, baubleModule == null ? null : baubleModule.getPlayerDataCodec(), baubleModule == null ? null : baubleModule.getPlayerDataStorage(), journaledBaubles);
+        autosavesSinceCompaction = 0;
+
+        if (journal != null) {
+            try {
+                journal.clear();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private <T extends PlayerRecord> void save(@Nullable RSVModule module, @Nullable RecordCodec<T> codec, @Nullable PlayerDataStorage<T> storage, @Nonnull Map<UUID, T> journaled) {
+        if (storage != null && !journaled.isEmpty()) {
+            Set<UUID> rejected = storage.save(new ArrayList<>(journaled.values()));
+
+            if (!rejected.isEmpty()) {
+                keepConflicts(module, codec, rejected, journaled);
+                disowned.addAll(rejected);
+            }
+        }
+        journaled.clear();
+    }
+
+    /**
+     * Moves records a storage refused to write into the conflicts journal, so they can be recovered by hand
+     * instead of being lost when the journal is emptied
+     * @param ids The players whose records were refused
+     * @param records The records to pick the refused ones from
+     */
+    private <T extends PlayerRecord> void keepConflicts(@Nullable RSVModule module, @Nullable RecordCodec<T> codec, @Nonnull Set<UUID> ids, @Nonnull Map<UUID, T> records) {
+        List<T> kept = new ArrayList<>();
+        for (UUID id : ids) {
+            T record = records.get(id);
+
+            if (record != null) {
+                kept.add(record);
+            }
+        }
+
+        if (module == null || codec == null || kept.isEmpty()) {
+            return;
+        }
+
+        boolean written = false;
+        if (conflicts != null) {
+            try {
+                conflicts.append(module.getName(), codec, kept);
+                written = true;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        for (T record : kept) {
+            plugin.getLogger().warning("Did not save " + module.getName() + " data of " + record.id() + ", it was changed by another server. "
+                    + (written ? "This server's copy was kept in resources/playerdata.conflicts" : "This server's copy could not be kept"));
+        }
+    }
+
+    /**
+     * Writes what was left in the journal after a crash into the storages
+     */
+    private void replay(@Nonnull PlayerDataJournal journal) throws IOException {
+        if (journal.isEmpty()) {
+            return;
+        }
+
+        int replayed = replay(journal, tanModule, tanModule == null ? null : tanModule.getPlayerDataCodec(), tanModule == null ? null : tanModule.getPlayerDataStorage())
+                + replay(journal, baubleModule, baubleModule == null ? null : baubleModule.getPlayerDataCodec(), baubleModule == null ? null : baubleModule.getPlayerDataStorage());
+
+        journal.clear();
+        plugin.getLogger().info("Recovered " + replayed + " unsaved player records from the journal");
+    }
+
+    private <T extends PlayerRecord> int replay(@Nonnull PlayerDataJournal journal, @Nullable RSVModule module, @Nullable RecordCodec<T> codec, @Nullable PlayerDataStorage<T> storage) throws IOException {
+        if (module == null || codec == null || storage == null || !module.isGloballyEnabled()) {
+            return 0;
+        }
+
+        Map<UUID, PlayerDataJournal.Entry<T>> entries = journal.read(module.getName(), codec);
+        List<T> records = new ArrayList<>();
+
+        for (PlayerDataJournal.Entry<T> entry : entries.values()) {
+            // the storage refuses the record if the player was saved since, by this server on quit or by another server after that
+            if (entry.version() >= 0) {
+                storage.expectVersion(entry.record().id(), entry.version());
+            }
+            records.add(entry.record());
+        }
+
+        Set<UUID> stale = storage.save(records);
+        for (UUID id : entries.keySet()) {
+            storage.release(id);
+        }
+
+        if (!stale.isEmpty()) {
+            plugin.getLogger().info("Skipped " + stale.size() + " " + module.getName() + " records in the journal that were already replaced by newer data");
+        }
+        return records.size() - stale.size();
+    }
+
+    public void start() {
+        int tickPeriod = Math.max(1, plugin.getConfig().getInt("PlayerData.FlushTickPeriod", 200));
+        this.runTaskTimer(plugin, tickPeriod, tickPeriod);
+    }
+
+    /**
+     * Stops the task and synchronously writes everything that is still pending, used when the plugin shuts down
+     */
+    public void stop() {
+        cancel();
+
+        for (RSVPlayer player : RSVPlayer.getPlayers().values()) {
+            queue(player, false);
+        }
+        write(true);
+
+        if (journal != null) {
+            journal.close();
+        }
+        if (conflicts != null) {
+            conflicts.close();
+        }
+
+        for (UUID id : RSVPlayer.getPlayers().keySet()) {
+            plugin.getSessionLeases().release(id);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data;
+
+import me.val_mobile.data.storage.PlayerRecord;
+import me.val_mobile.data.storage.RecordCodec;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of player records that were saved but not yet written to their storage.
+ * Appending is one sequential write, so it is done on every autosave while the storage itself is
+ * only brought up to date every few autosaves. After a crash, the journal is replayed on startup.
+ * Each entry carries a checksum so an entry cut off by the crash is ignored, and the storage version
+ * the record was based on so an entry that was already replaced by newer data is not replayed
+ */
+public class PlayerDataJournal {
+
+    private static final String VERSION_KEY = "JournalVersion";
+
+    private final File file;
+    private final FileChannel channel;
+
+    public PlayerDataJournal(@Nonnull File file) throws IOException {
+        file.getParentFile().mkdirs();
+
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    /**
+     * Appends records and waits until they are on disk
+     * @param module The name of the module the records belong to
+     * @param codec The module's codec
+     * @param records The records
+     */
+    public <T extends PlayerRecord> void append(@Nonnull String module, @Nonnull RecordCodec<T> codec, @Nonnull Collection<T> records) throws IOException {
+        append(module, codec, records, id -> -1);
+    }
+
+    /**
+     * Appends records and waits until they are on disk
+     * @param module The name of the module the records belong to
+     * @param codec The module's codec
+     * @param records The records
+     * @param versions The storage version each player's record was based on, -1 if unknown
+     */
+    public synchronized <T extends PlayerRecord> void append(@Nonnull String module, @Nonnull RecordCodec<T> codec, @Nonnull Collection<T> records, @Nonnull ToLongFunction<UUID> versions) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        for (T record : records) {
+            YamlConfiguration config = new YamlConfiguration();
+            config.set(VERSION_KEY, versions.applyAsLong(record.id()));
+            codec.write(record, config);
+
+            ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+            DataOutputStream payload = new DataOutputStream(payloadBytes);
+            payload.writeUTF(module);
+            payload.writeLong(record.id().getMostSignificantBits());
+            payload.writeLong(record.id().getLeastSignificantBits());
+            payload.write(config.saveToString().getBytes(StandardCharsets.UTF_8));
+
+            byte[] entry = payloadBytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(entry);
+
+            out.writeInt(entry.length);
+            out.writeLong(crc.getValue());
+            out.write(entry);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Reads the latest journaled record of every player of a module
+     * @param module The name of the module
+     * @param codec The module's codec
+     * @return The entries by player
+     */
+    @Nonnull
+    public synchronized <T extends PlayerRecord> Map<UUID, Entry<T>> read(@Nonnull String module, @Nonnull RecordCodec<T> codec) throws IOException {
+        Map<UUID, Entry<T>> records = new HashMap<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                byte[] entry;
+                long checksum;
+
+                try {
+                    int length = in.readInt();
+                    checksum = in.readLong();
+
+                    if (length < 0 || length > in.available()) {
+                        break;
+                    }
+                    entry = new byte[length];
+                    in.readFully(entry);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(entry);
+
+                // anything after a damaged entry was written by the same interrupted write
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+
+                DataInputStream payload = new DataInputStream(new ByteArrayInputStream(entry));
+                if (!payload.readUTF().equals(module)) {
+                    continue;
+                }
+
+                UUID id = new UUID(payload.readLong(), payload.readLong());
+                YamlConfiguration config = new YamlConfiguration();
+
+                try {
+                    config.loadFromString(new String(payload.readAllBytes(), StandardCharsets.UTF_8));
+                } catch (InvalidConfigurationException e) {
+                    e.printStackTrace();
+                    continue;
+                }
+
+                // entries written before versions were journaled have none and are always replayed
+                records.put(id, new Entry<>(codec.read(id, config), config.getLong(VERSION_KEY, -1)));
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Empties the journal, only call once everything in it is in the storage
+     */
+    public synchronized void clear() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+    }
+
+    public synchronized boolean isEmpty() throws IOException {
+        return channel.size() == 0;
+    }
+
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A journaled record
+     * @param version The storage version the record was based on, -1 if unknown
+     */
+    public record Entry<T extends PlayerRecord>(@Nonnull T record, long version) {}
+}
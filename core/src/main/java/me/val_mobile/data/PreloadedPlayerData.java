@@ -0,0 +1,66 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data;
+
+import me.val_mobile.baubles.BaubleModule;
+import me.val_mobile.data.baubles.BaubleRecord;
+import me.val_mobile.data.storage.PlayerDataStorage;
+import me.val_mobile.data.toughasnails.TanRecord;
+import me.val_mobile.tan.TanModule;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * A player's saved data, read and decoded before they join so the join itself only has to attach it.
+ * A null record means the player has no saved data for that module, the module is disabled,
+ * or the module's storage can only be read on the main thread (see {@link #isPreloaded(PlayerDataStorage)}).
+ * changedElsewhere is true when another server saved the player since this server last did, so any
+ * session this server still has cached for them is out of date
+ */
+public record PreloadedPlayerData(@Nonnull UUID id, @Nullable TanRecord tan, @Nullable BaubleRecord baubles, boolean changedElsewhere) {
+
+    /**
+     * Reads a player's data from every enabled module's storage. Safe to call off the main thread
+     * @param id The player's UUID
+     * @return The decoded data
+     */
+    @Nonnull
+    public static PreloadedPlayerData load(@Nonnull UUID id) {
+        TanModule tanModule = (TanModule) RSVModule.getModule(TanModule.NAME);
+        BaubleModule baubleModule = (BaubleModule) RSVModule.getModule(BaubleModule.NAME);
+
+        PlayerDataStorage<TanRecord> tanStorage = tanModule != null && tanModule.isGloballyEnabled() ? tanModule.getPlayerDataStorage() : null;
+        PlayerDataStorage<BaubleRecord> baubleStorage = baubleModule != null && baubleModule.isGloballyEnabled() ? baubleModule.getPlayerDataStorage() : null;
+
+        // checked before loading since loading records the version that was read
+        boolean changedElsewhere = (tanStorage != null && !tanStorage.isUpToDate(id)) || (baubleStorage != null && !baubleStorage.isUpToDate(id));
+
+        TanRecord tan = tanStorage != null && isPreloaded(tanStorage) ? tanStorage.load(id) : null;
+        BaubleRecord baubles = baubleStorage != null && isPreloaded(baubleStorage) ? baubleStorage.load(id) : null;
+
+        return new PreloadedPlayerData(id, tan, baubles, changedElsewhere);
+    }
+
+    /**
+     * @return Whether records from a storage are read ahead of the join, otherwise they have to be read during it
+     */
+    public static boolean isPreloaded(@Nonnull PlayerDataStorage<?> storage) {
+        return storage.isThreadSafe();
+    }
+}
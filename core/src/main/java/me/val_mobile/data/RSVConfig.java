@@ -111,7 +111,7 @@ public class RSVConfig extends FileBuilder {
                         }
                     }
                     config.set("ConfigId", latestVersion);
-                    config.save(file);
+                    ConfigWriter.save(config, file);
 
                 } catch (IOException e) {
                     e.printStackTrace();
@@ -147,6 +147,8 @@ public class RSVConfig extends FileBuilder {
      * Reloads the config to use the most recent values
      */
     public void reloadConfig() {
+        // make sure changes that are still queued are on disk first
+        ConfigWriter.flush();
         setConfig(YamlConfiguration.loadConfiguration(file));
     }
 
@@ -25,7 +25,6 @@ import org.bukkit.entity.Entity;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.IOException;
 import java.util.*;
 
 public abstract class RSVModule {
@@ -102,11 +101,7 @@ public abstract class RSVModule {
             }
         }
 
-        try {
-            config.save(plugin.getConfigFile());
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        ConfigWriter.save(config, plugin.getConfigFile());
         modules.put(name, this);
     }
 
@@ -25,6 +25,7 @@ import org.bukkit.entity.Player;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -34,6 +35,15 @@ public class RSVPlayer {
     private final DataModule tanDataModule;
     private final me.val_mobile.data.baubles.DataModule baubleDataModule;
     private static final Map<UUID, RSVPlayer> players = new HashMap<>();
+    private static final Map<UUID, RSVPlayer> recentPlayers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, RSVPlayer> eldest) {
+            return size() > recentCapacity;
+        }
+    };
+    private static int recentCapacity = 32;
+    private static long sessionHits = 0;
+    private static long sessionMisses = 0;
 
     public RSVPlayer(Player player) {
         this.uuid = player.getUniqueId();
@@ -44,11 +54,75 @@ public class RSVPlayer {
         players.put(uuid, this);
     }
 
+    /**
+     * @return The players with an active session, meaning every online player
+     */
     @Nonnull
     public static Map<UUID, RSVPlayer> getPlayers() {
         return players;
     }
 
+    /**
+     * Ends a player's session when they leave. Their data must already be queued for saving,
+     * the player is then only kept in a small cache of recently left players so a quick reconnect
+     * does not have to load everything again
+     * @param id The player's UUID
+     */
+    public static void endSession(@Nonnull UUID id) {
+        RSVPlayer player = players.remove(id);
+
+        if (player != null && recentCapacity > 0) {
+            recentPlayers.put(id, player);
+        }
+    }
+
+    /**
+     * Restores the session of a player who left recently
+     * @param id The player's UUID
+     * @return Whether the player was still cached, if not a new RSVPlayer has to be created
+     */
+    public static boolean resumeSession(@Nonnull UUID id) {
+        RSVPlayer player = recentPlayers.remove(id);
+
+        if (player == null) {
+            sessionMisses++;
+            return false;
+        }
+
+        sessionHits++;
+        players.put(id, player);
+        return true;
+    }
+
+    /**
+     * Forgets the cached session of a player who left recently, used when their data was changed elsewhere
+     * @param id The player's UUID
+     */
+    public static void discardSession(@Nonnull UUID id) {
+        recentPlayers.remove(id);
+    }
+
+    public static void setRecentCapacity(int capacity) {
+        recentCapacity = Math.max(0, capacity);
+    }
+
+    public static int getRecentCount() {
+        return recentPlayers.size();
+    }
+
+    public static long getSessionHits() {
+        return sessionHits;
+    }
+
+    public static long getSessionMisses() {
+        return sessionMisses;
+    }
+
+    @Nonnull
+    public UUID getUuid() {
+        return uuid;
+    }
+
     @Nullable
     public Player getPlayer() {
         return Bukkit.getPlayer(uuid);
@@ -63,6 +137,29 @@ public class RSVPlayer {
         }
     }
 
+    /**
+     * Attaches data that was read ahead of time instead of reading it again
+     * @param data The player's preloaded data
+     */
+    public void attachData(@Nonnull PreloadedPlayerData data) {
+        if (tanDataModule != null) {
+            if (PreloadedPlayerData.isPreloaded(tanDataModule.getStorage())) {
+                tanDataModule.attach(data.tan());
+            }
+            else {
+                tanDataModule.retrieveData();
+            }
+        }
+        if (baubleDataModule != null) {
+            if (PreloadedPlayerData.isPreloaded(baubleDataModule.getStorage())) {
+                baubleDataModule.attach(data.baubles());
+            }
+            else {
+                baubleDataModule.retrieveData();
+            }
+        }
+    }
+
     public void saveData() {
         if (tanDataModule != null) {
             tanDataModule.saveData();
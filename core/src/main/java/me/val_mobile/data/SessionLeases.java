@@ -0,0 +1,245 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data;
+
+import me.val_mobile.rsv.RSVPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Hands players over between servers that share one data folder. A server holds a lease file for
+ * every player it has online and only gives it up once the player's data was saved after they quit,
+ * so the next server waits for that save before reading the player's data.
+ * A lease file only ever appears fully written, and a server only ever deletes a lease it owns
+ */
+public class SessionLeases {
+
+    private static final long POLL_MILLIS = 50;
+    private static final String LEASE_SUFFIX = ".lease";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Logger logger;
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final String serverId;
+    private final File directory;
+
+    public SessionLeases(RSVPlugin plugin) {
+        this(new File(plugin.getDataFolder(), "resources/sessions"),
+                getServerId(plugin.getConfig()),
+                plugin.getConfig().getBoolean("PlayerData.Handoff.Enabled", false),
+                Math.max(0, plugin.getConfig().getLong("PlayerData.Handoff.TimeoutMillis", 5000)),
+                plugin.getLogger());
+    }
+
+    SessionLeases(@Nonnull File directory, @Nonnull String serverId, boolean enabled, long timeoutMillis, @Nonnull Logger logger) {
+        this.logger = logger;
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.serverId = serverId;
+        this.directory = directory;
+
+        if (enabled) {
+            directory.mkdirs();
+            releaseAll();
+        }
+    }
+
+    @Nonnull
+    private static String getServerId(@Nonnull FileConfiguration config) {
+        String configuredId = config.getString("PlayerData.Handoff.ServerId", "");
+        return configuredId == null || configuredId.isBlank() ? "port-" + Bukkit.getPort() : configuredId;
+    }
+
+    /**
+     * Takes the lease for a player, waiting for the server they came from to give it up first.
+     * Must not be called on the main thread
+     * @param id The player's UUID
+     * @return False if the previous server did not give up the lease in time and it was taken over
+     */
+    public boolean acquire(@Nonnull UUID id) {
+        if (!enabled) {
+            return true;
+        }
+
+        Path path = getFile(id).toPath();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        while (true) {
+            try {
+                if (publish(path)) {
+                    return true;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return true;
+            }
+
+            if (serverId.equals(readOwner(path))) {
+                return true;
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                break;
+            }
+
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        logger.warning("Server " + readOwner(path) + " did not hand over player " + id + " in time, taking over");
+
+        try {
+            // replacing the other server's lease is intended here, the rename makes sure nobody reads half of it
+            Files.move(writeTemp(), path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Creates the lease file if no server holds it. The owner is written to a temporary file first, so
+     * other servers never see an empty or half written lease
+     * @param path The lease file
+     * @return False if another lease file already exists
+     */
+    private boolean publish(@Nonnull Path path) throws IOException {
+        Path temp = writeTemp();
+
+        try {
+            // a rename would silently replace a lease another server just created, a hard link fails instead
+            Files.createLink(path, temp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (UnsupportedOperationException e) {
+            // the file system has no hard links, fall back to a rename which can only race with another server in the same instant
+            if (Files.exists(path)) {
+                return false;
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Nonnull
+    private Path writeTemp() throws IOException {
+        Path temp = directory.toPath().resolve(UUID.randomUUID() + TEMP_SUFFIX);
+        Files.writeString(temp, serverId, StandardCharsets.UTF_8);
+        return temp;
+    }
+
+    /**
+     * Gives up the lease for a player, only call once their data is saved
+     * @param id The player's UUID
+     */
+    public void release(@Nonnull UUID id) {
+        if (!enabled) {
+            return;
+        }
+
+        Path path = getFile(id).toPath();
+
+        if (!serverId.equals(readOwner(path))) {
+            return;
+        }
+
+        // another server may take the lease over between reading the owner and deleting it, so the lease is
+        // first renamed to a name only this server knows and only deleted if it still is this server's lease
+        Path released = directory.toPath().resolve(UUID.randomUUID() + TEMP_SUFFIX);
+
+        try {
+            Files.move(path, released, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            if (!serverId.equals(readOwner(released))) {
+                try {
+                    Files.createLink(path, released);
+                } catch (FileAlreadyExistsException e) {
+                    // the lease was given to yet another server in the meantime, which is newer anyway
+                } catch (UnsupportedOperationException e) {
+                    Files.move(released, path, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            Files.deleteIfExists(released);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gives up every lease held by this server, used on startup to clean up after a crash
+     */
+    private void releaseAll() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(LEASE_SUFFIX) || name.endsWith(TEMP_SUFFIX));
+
+        if (files != null) {
+            for (File file : files) {
+                if (serverId.equals(readOwner(file.toPath()))) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private static String readOwner(@Nonnull Path path) {
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8).trim();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Nonnull
+    private File getFile(@Nonnull UUID id) {
+        return new File(directory, id + LEASE_SUFFIX);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,526 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.baubles;
+
+import me.val_mobile.data.storage.SqlRecordCodec;
+import me.val_mobile.utils.RSVItem;
+import me.val_mobile.utils.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores a bauble bag as one base64 encoded blob. RSV items are written as their name, amount, durability
+ * and the persistent data tags that differ from the configured item, and rebuilt from a template of the
+ * configured item when read; anything that would not come back identical that way (renamed, enchanted,
+ * vanilla items) is written as the fully serialized item. Bags saved in the old "Items" layout are still read
+ */
+public class BaubleRecordCodec implements SqlRecordCodec<BaubleRecord> {
+
+    private static final int FORMAT = 2;
+    private static final byte RSV_ITEM = 0;
+    private static final byte SERIALIZED_ITEM = 1;
+    private static final byte REMOVED_TAG = -1;
+    // the index of a tag's type is what gets written, so new types may only be added at the end
+    private static final List<PersistentDataType<?, ?>> TAG_TYPES = List.of(
+            PersistentDataType.BYTE,
+            PersistentDataType.SHORT,
+            PersistentDataType.INTEGER,
+            PersistentDataType.LONG,
+            PersistentDataType.FLOAT,
+            PersistentDataType.DOUBLE,
+            PersistentDataType.STRING,
+            PersistentDataType.BYTE_ARRAY,
+            PersistentDataType.INTEGER_ARRAY,
+            PersistentDataType.LONG_ARRAY);
+
+    // bags are encoded and decoded off the main thread, building an item from its config is only done on the main thread
+    private static final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * The configured item an RSV item is rebuilt from
+     * @param source The registered item the template was built from, replaced when the config is reloaded
+     * @param item A plain copy of the configured item
+     */
+    private record Template(@Nonnull RSVItem source, @Nonnull ItemStack item) {}
+
+    /**
+     * Makes sure the template of an RSV item is built, so saving it off the main thread only has to copy the template.
+     * Must be called on the main thread
+     * @param item The RSV item that is about to be saved
+     */
+    public static void prepare(@Nonnull ItemStack item) {
+        String name = RSVItem.getNameFromItem(item);
+        RSVItem source = name == null ? null : RSVItem.getItemMap().get(name);
+
+        if (source == null) {
+            return;
+        }
+
+        Template template = templates.get(name);
+
+        if (template == null || template.source() != source) {
+            templates.put(name, new Template(source, new ItemStack(new RSVItem(source))));
+        }
+    }
+
+    @Override
+    public void write(@Nonnull BaubleRecord record, @Nonnull ConfigurationSection section) {
+        section.set("Items", null);
+
+        try {
+            section.set("Bag", Base64.getEncoder().encodeToString(encode(record.items())));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public BaubleRecord read(@Nonnull UUID id, @Nonnull ConfigurationSection section) {
+        String bag = section.getString("Bag");
+
+        if (bag != null) {
+            try {
+                return new BaubleRecord(id, decode(Base64.getDecoder().decode(bag)));
+            } catch (IOException | ClassNotFoundException | IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return new BaubleRecord(id, readLegacy(section));
+    }
+
+    @Nonnull
+    @Override
+    public String getTable() {
+        return "bauble_bags";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getColumnDefinitions() {
+        return List.of("bag BLOB NOT NULL");
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getColumnNames() {
+        return List.of("bag");
+    }
+
+    @Override
+    public void bind(@Nonnull BaubleRecord record, @Nonnull PreparedStatement statement, int index) throws SQLException {
+        try {
+            statement.setBytes(index, encode(record.items()));
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public BaubleRecord read(@Nonnull UUID id, @Nonnull ResultSet result) throws SQLException {
+        try {
+            return new BaubleRecord(id, decode(result.getBytes("bag")));
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Nonnull
+    private static byte[] encode(@Nonnull Map<Integer, ItemStack> items) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeInt(Bukkit.getUnsafe().getDataVersion());
+            out.writeByte(items.size());
+
+            for (Map.Entry<Integer, ItemStack> entry : items.entrySet()) {
+                ItemStack item = entry.getValue();
+                out.writeByte(entry.getKey());
+
+                String name = RSVItem.isRSVItem(item) ? RSVItem.getNameFromItem(item) : null;
+                Template template = name == null ? null : templates.get(name);
+                int durability = getDurability(item);
+
+                ItemStack rebuilt = template == null ? null : rebuild(template.item().clone(), item.getAmount(), durability);
+                Map<NamespacedKey, Object> tags = rebuilt == null ? null : diffTags(item, rebuilt);
+
+                // only use the short form when rebuilding the item gives back exactly the same item
+                if (tags != null && item.equals(applyTags(rebuilt, tags))) {
+                    out.writeByte(RSV_ITEM);
+                    out.writeUTF(name);
+                    out.writeByte(item.getAmount());
+                    out.writeInt(durability);
+                    writeTags(out, tags);
+                }
+                else {
+                    byte[] serialized = serialize(item);
+
+                    out.writeByte(SERIALIZED_ITEM);
+                    out.writeInt(serialized.length);
+                    out.write(serialized);
+                }
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Nonnull
+    private static Map<Integer, ItemStack> decode(@Nonnull byte[] blob) throws IOException, ClassNotFoundException {
+        Map<Integer, ItemStack> items = new HashMap<>();
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob))) {
+            int format = in.readUnsignedByte();
+
+            if (format < 1 || format > FORMAT) {
+                throw new IOException("Unknown bauble bag format " + format);
+            }
+
+            // serialized items carry their own data version and are upgraded by the server when read
+            in.readInt();
+            int size = in.readUnsignedByte();
+
+            for (int i = 0; i < size; i++) {
+                int slot = in.readUnsignedByte();
+                byte type = in.readByte();
+
+                ItemStack item;
+                if (type == RSV_ITEM) {
+                    String name = in.readUTF();
+                    int amount = in.readUnsignedByte();
+                    int durability = in.readInt();
+                    Map<NamespacedKey, Object> tags = format >= 2 ? readTags(in) : Map.of();
+
+                    item = rebuild(name, amount, durability);
+                    if (item != null) {
+                        applyTags(item, tags);
+                    }
+                }
+                else {
+                    byte[] serialized = new byte[in.readInt()];
+                    in.readFully(serialized);
+
+                    item = deserialize(serialized);
+                }
+
+                if (item != null) {
+                    items.put(slot, item);
+                }
+            }
+        }
+
+        return items;
+    }
+
+    @Nonnull
+    private static Map<Integer, ItemStack> readLegacy(@Nonnull ConfigurationSection section) {
+        Map<Integer, ItemStack> items = new HashMap<>();
+        ConfigurationSection itemSection = section.getConfigurationSection("Items");
+
+        if (itemSection != null) {
+            int dataVersion = Bukkit.getUnsafe().getDataVersion();
+
+            for (String key : itemSection.getKeys(false)) {
+                ConfigurationSection serialized = itemSection.getConfigurationSection(key);
+
+                if (serialized != null) {
+                    Map<String, Object> values = serialized.getValues(true);
+                    values.put("v", dataVersion);
+
+                    items.put(Integer.parseInt(key), ItemStack.deserialize(values));
+                }
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * @return The item's durability or -1 if it has none
+     */
+    private static int getDurability(@Nonnull ItemStack item) {
+        return Utils.hasCustomDurability(item) || Utils.getMaxVanillaDurability(item) > 0 ? Utils.getDurability(item) : -1;
+    }
+
+    @Nullable
+    private static ItemStack rebuild(@Nonnull String name, int amount, int durability) {
+        Template template = templates.get(name);
+
+        if (template != null) {
+            return rebuild(template.item().clone(), amount, durability);
+        }
+
+        // a player's bag is read before any of their items were saved on this server
+        RSVItem rsvItem = RSVItem.getItem(name);
+        return rsvItem == null ? null : rebuild(new ItemStack(rsvItem), amount, durability);
+    }
+
+    @Nonnull
+    private static ItemStack rebuild(@Nonnull ItemStack item, int amount, int durability) {
+        item.setAmount(amount);
+
+        if (durability >= 0) {
+            setDurability(item, durability);
+        }
+
+        return item;
+    }
+
+    /**
+     * Finds the persistent data tags of an item that differ from the rebuilt item
+     * @return The differing tags with null for tags the item doesn't have, or null if a tag can't be written
+     */
+    @Nullable
+    private static Map<NamespacedKey, Object> diffTags(@Nonnull ItemStack item, @Nonnull ItemStack rebuilt) {
+        ItemMeta meta = item.getItemMeta();
+        ItemMeta rebuiltMeta = rebuilt.getItemMeta();
+
+        if (meta == null || rebuiltMeta == null) {
+            return meta == rebuiltMeta ? Map.of() : null;
+        }
+
+        PersistentDataContainer tags = meta.getPersistentDataContainer();
+        PersistentDataContainer rebuiltTags = rebuiltMeta.getPersistentDataContainer();
+        Set<NamespacedKey> keys = tags.getKeys();
+        Map<NamespacedKey, Object> diff = new LinkedHashMap<>();
+
+        for (NamespacedKey key : keys) {
+            Object value = getTag(tags, key);
+
+            if (value == null) {
+                return null;
+            }
+            if (!Objects.deepEquals(value, getTag(rebuiltTags, key))) {
+                diff.put(key, value);
+            }
+        }
+
+        for (NamespacedKey key : rebuiltTags.getKeys()) {
+            if (!keys.contains(key)) {
+                diff.put(key, null);
+            }
+        }
+
+        return diff;
+    }
+
+    @Nonnull
+    private static ItemStack applyTags(@Nonnull ItemStack item, @Nonnull Map<NamespacedKey, Object> tags) {
+        if (tags.isEmpty()) {
+            return item;
+        }
+
+        ItemMeta meta = item.getItemMeta();
+
+        if (meta != null) {
+            PersistentDataContainer container = meta.getPersistentDataContainer();
+
+            for (Map.Entry<NamespacedKey, Object> entry : tags.entrySet()) {
+                if (entry.getValue() == null) {
+                    container.remove(entry.getKey());
+                }
+                else {
+                    setTag(container, entry.getKey(), TAG_TYPES.get(getTagType(entry.getValue())), entry.getValue());
+                }
+            }
+            item.setItemMeta(meta);
+        }
+
+        return item;
+    }
+
+    /**
+     * @return The tag's value or null if it is missing or of a type that can't be written
+     */
+    @Nullable
+    private static Object getTag(@Nonnull PersistentDataContainer container, @Nonnull NamespacedKey key) {
+        for (PersistentDataType<?, ?> type : TAG_TYPES) {
+            if (container.has(key, type)) {
+                return container.get(key, type);
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setTag(@Nonnull PersistentDataContainer container, @Nonnull NamespacedKey key, @Nonnull PersistentDataType<?, ?> type, @Nonnull Object value) {
+        container.set(key, (PersistentDataType<T, T>) type, (T) value);
+    }
+
+    private static int getTagType(@Nonnull Object value) {
+        for (int i = 0; i < TAG_TYPES.size(); i++) {
+            if (TAG_TYPES.get(i).getComplexType().isInstance(value)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported tag value " + value.getClass());
+    }
+
+    private static void writeTags(@Nonnull DataOutputStream out, @Nonnull Map<NamespacedKey, Object> tags) throws IOException {
+        out.writeShort(tags.size());
+
+        for (Map.Entry<NamespacedKey, Object> entry : tags.entrySet()) {
+            Object value = entry.getValue();
+            out.writeUTF(entry.getKey().toString());
+
+            if (value == null) {
+                out.writeByte(REMOVED_TAG);
+                continue;
+            }
+
+            int type = getTagType(value);
+            out.writeByte(type);
+
+            switch (type) {
+                case 0 -> out.writeByte((Byte) value);
+                case 1 -> out.writeShort((Short) value);
+                case 2 -> out.writeInt((Integer) value);
+                case 3 -> out.writeLong((Long) value);
+                case 4 -> out.writeFloat((Float) value);
+                case 5 -> out.writeDouble((Double) value);
+                case 6 -> out.writeUTF((String) value);
+                case 7 -> {
+                    byte[] array = (byte[]) value;
+                    out.writeInt(array.length);
+                    out.write(array);
+                }
+                case 8 -> {
+                    int[] array = (int[]) value;
+                    out.writeInt(array.length);
+                    for (int i : array) {
+                        out.writeInt(i);
+                    }
+                }
+                case 9 -> {
+                    long[] array = (long[]) value;
+                    out.writeInt(array.length);
+                    for (long l : array) {
+                        out.writeLong(l);
+                    }
+                }
+                default -> throw new IOException("Unsupported tag type " + type);
+            }
+        }
+    }
+
+    @Nonnull
+    private static Map<NamespacedKey, Object> readTags(@Nonnull DataInputStream in) throws IOException {
+        int size = in.readUnsignedShort();
+        Map<NamespacedKey, Object> tags = new LinkedHashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            NamespacedKey key = NamespacedKey.fromString(in.readUTF());
+            byte type = in.readByte();
+
+            Object value = switch (type) {
+                case REMOVED_TAG -> null;
+                case 0 -> in.readByte();
+                case 1 -> in.readShort();
+                case 2 -> in.readInt();
+                case 3 -> in.readLong();
+                case 4 -> in.readFloat();
+                case 5 -> in.readDouble();
+                case 6 -> in.readUTF();
+                case 7 -> {
+                    byte[] array = new byte[in.readInt()];
+                    in.readFully(array);
+                    yield array;
+                }
+                case 8 -> {
+                    int[] array = new int[in.readInt()];
+                    for (int j = 0; j < array.length; j++) {
+                        array[j] = in.readInt();
+                    }
+                    yield array;
+                }
+                case 9 -> {
+                    long[] array = new long[in.readInt()];
+                    for (int j = 0; j < array.length; j++) {
+                        array[j] = in.readLong();
+                    }
+                    yield array;
+                }
+                default -> throw new IOException("Unknown tag type " + type);
+            };
+
+            if (key != null) {
+                tags.put(key, value);
+            }
+        }
+
+        return tags;
+    }
+
+    private static void setDurability(@Nonnull ItemStack item, int durability) {
+        int maxMcDurability = item.getType().getMaxDurability();
+        ItemMeta meta = item.getItemMeta();
+
+        if (Utils.hasCustomDurability(item)) {
+            int rsvMaxDurability = Utils.getMaxCustomDurability(item);
+
+            if (maxMcDurability > 0 && meta instanceof Damageable damageable) {
+                damageable.setDamage(maxMcDurability - (int) Math.ceil((double) durability / rsvMaxDurability * maxMcDurability));
+                item.setItemMeta(meta);
+            }
+
+            Utils.addNbtTag(item, "rsvdurability", durability, PersistentDataType.INTEGER);
+            Utils.updateLore(item, durability);
+        }
+        else if (maxMcDurability > 0 && meta instanceof Damageable damageable) {
+            damageable.setDamage(maxMcDurability - durability);
+            item.setItemMeta(meta);
+        }
+    }
+
+    @Nonnull
+    private static byte[] serialize(@Nonnull ItemStack item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (BukkitObjectOutputStream out = new BukkitObjectOutputStream(bytes)) {
+            out.writeObject(item);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Nullable
+    private static ItemStack deserialize(@Nonnull byte[] serialized) throws IOException, ClassNotFoundException {
+        try (BukkitObjectInputStream in = new BukkitObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (ItemStack) in.readObject();
+        }
+    }
+}
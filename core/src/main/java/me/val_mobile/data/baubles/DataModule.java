@@ -17,32 +17,34 @@
 package me.val_mobile.data.baubles;
 
 import me.val_mobile.baubles.BaubleModule;
-import me.val_mobile.data.RSVConfig;
 import me.val_mobile.data.RSVDataModule;
 import me.val_mobile.data.RSVModule;
+import me.val_mobile.data.storage.PlayerDataStorage;
 import me.val_mobile.utils.RSVItem;
-import org.bukkit.Bukkit;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
-import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
 public class DataModule implements RSVDataModule {
 
-    private final RSVConfig config;
+    private static final Pattern SLOT_ITEM = Pattern.compile("^(charm|body|ring|belt|amulet|head)_slot$");
+
+    private final PlayerDataStorage<BaubleRecord> storage;
     private final BaubleInventory baubleBag;
     private final UUID id;
+    private Map<Integer, ItemStack> lastSaved = Map.of();
 
     public DataModule(Player player) {
         this.baubleBag = new BaubleInventory(player);
-        this.config = ((BaubleModule) RSVModule.getModule(BaubleModule.NAME)).getPlayerDataConfig();
+        this.storage = ((BaubleModule) RSVModule.getModule(BaubleModule.NAME)).getPlayerDataStorage();
         this.id = player.getUniqueId();
     }
 
@@ -60,59 +62,86 @@ public class DataModule implements RSVDataModule {
 
     @Override
     public void retrieveData() {
-        FileConfiguration config = this.config.getConfig();
-        ConfigurationSection section = config.getConfigurationSection(id + ".Items");
-        Set<String> keys = section == null ? new HashSet<>() : section.getKeys(false);
-        Inventory inv = baubleBag.getInventory();
+        attach(storage.load(id));
+    }
 
-        int dataVersion = Bukkit.getUnsafe().getDataVersion();
+    /**
+     * Fills the bag from a record that was already loaded
+     * @param record The player's saved baubles or null if they have none
+     */
+    public void attach(@Nullable BaubleRecord record) {
+        Inventory inv = baubleBag.getInventory();
 
-        for (String key : keys) {
-            if (config.getInt(id + ".Items." + key + ".v") != dataVersion) {
-                config.set(id + ".Items." + key + ".v", dataVersion);
+        if (record != null) {
+            for (Map.Entry<Integer, ItemStack> entry : record.items().entrySet()) {
+                inv.setItem(entry.getKey(), entry.getValue());
             }
-
-            int k = Integer.parseInt(key);
-
-            ItemStack item = ItemStack.deserialize(config.getConfigurationSection(id + ".Items." + key).getValues(true));
-
-            inv.setItem(k, item);
+            lastSaved = record.items();
         }
 
-        saveFile(config);
-
         baubleBag.fillDefaultItems();
     }
 
     @Override
     public void saveData() {
-        FileConfiguration config = this.config.getConfig();
+        storage.save(List.of(snapshot()));
+    }
 
+    /**
+     * Copies the baubles currently in the bag, leaving out the placeholder slot items
+     * @return An immutable copy of the bag's contents
+     */
+    @Nonnull
+    public BaubleRecord snapshot() {
         Inventory inv = baubleBag.getInventory();
+        Map<Integer, ItemStack> items = new HashMap<>();
 
         BaubleSlot[] values = BaubleSlot.values();
-        Pattern pattern = Pattern.compile("^(charm|body|ring|belt|amulet|head)_slot$");
         ItemStack item;
         for (BaubleSlot slot : values) {
             for (int i : slot.getValues()) {
                 item = inv.getItem(i);
-                if (RSVItem.isRSVItem(item) && !pattern.matcher(RSVItem.getNameFromItem(item)).find()) {
-                    config.set(id + ".Items." + i, item.serialize());
-                }
-                else {
-                    config.set(id + ".Items." + i, null);
+                if (RSVItem.isRSVItem(item) && !SLOT_ITEM.matcher(RSVItem.getNameFromItem(item)).find()) {
+                    items.put(i, item.clone());
+                    BaubleRecordCodec.prepare(item);
                 }
             }
         }
 
-        saveFile(config);
+        lastSaved = Map.copyOf(items);
+        return new BaubleRecord(id, lastSaved);
     }
 
-    public void saveFile(FileConfiguration config) {
-        try {
-            config.save(this.config.getFile());
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Checks if any bauble changed since the bag was loaded or last snapshotted, without copying anything
+     * @return Whether the bag has unsaved changes
+     */
+    public boolean isDirty() {
+        Inventory inv = baubleBag.getInventory();
+        int count = 0;
+
+        for (BaubleSlot slot : BaubleSlot.values()) {
+            for (int i : slot.getValues()) {
+                ItemStack item = inv.getItem(i);
+
+                if (RSVItem.isRSVItem(item) && !SLOT_ITEM.matcher(RSVItem.getNameFromItem(item)).find()) {
+                    if (!item.equals(lastSaved.get(i))) {
+                        return true;
+                    }
+                    count++;
+                }
+            }
         }
+        return count != lastSaved.size();
+    }
+
+    @Nonnull
+    public UUID getId() {
+        return id;
+    }
+
+    @Nonnull
+    public PlayerDataStorage<BaubleRecord> getStorage() {
+        return storage;
     }
 }
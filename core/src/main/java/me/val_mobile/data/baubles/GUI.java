@@ -28,7 +28,8 @@ public abstract class GUI {
     private final UUID id;
 
     public GUI(Player player, int size, String name) {
-        this.inv = Bukkit.createInventory(player, size, name);
+        // the inventory may outlive the player object, e.g. a bauble bag kept for a player who is reconnecting
+        this.inv = Bukkit.createInventory(null, size, name);
         this.id = player == null ? null : player.getUniqueId();
     }
 
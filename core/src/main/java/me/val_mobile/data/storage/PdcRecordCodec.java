@@ -0,0 +1,39 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A codec that can also store records in a player's persistent data container, needed for the player data storage
+ * @param <T> The type of record
+ */
+public interface PdcRecordCodec<T extends PlayerRecord> extends RecordCodec<T> {
+
+    void write(@Nonnull T record, @Nonnull Player player);
+
+    /**
+     * Reads a record from a player's persistent data container
+     * @param player The player
+     * @return The record or null if the player has none stored yet
+     */
+    @Nullable
+    T read(@Nonnull Player player);
+}
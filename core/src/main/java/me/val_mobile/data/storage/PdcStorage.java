@@ -0,0 +1,91 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps records in the player's own persistent data container, so they are saved by the server
+ * together with the player's .dat file and the plugin does no file I/O for them.
+ * Players without stored data yet are imported once from the previous storage.
+ * Only works for online players and only on the main thread
+ * @param <T> The type of record stored
+ */
+public class PdcStorage<T extends PlayerRecord> implements PlayerDataStorage<T> {
+
+    private final PdcRecordCodec<T> codec;
+    private final PlayerDataStorage<T> importSource;
+
+    public PdcStorage(@Nonnull PdcRecordCodec<T> codec, @Nonnull PlayerDataStorage<T> importSource) {
+        this.codec = codec;
+        this.importSource = importSource;
+    }
+
+    @Nullable
+    @Override
+    public T load(@Nonnull UUID id) {
+        Player player = Bukkit.getPlayer(id);
+
+        if (player == null) {
+            return null;
+        }
+
+        T record = codec.read(player);
+
+        return record == null ? importSource.load(id) : record;
+    }
+
+    @Nonnull
+    @Override
+    public Set<UUID> save(@Nonnull Collection<T> records) {
+        for (T record : records) {
+            Player player = Bukkit.getPlayer(record.id());
+
+            if (player != null) {
+                codec.write(record, player);
+            }
+        }
+        return Set.of();
+    }
+
+    @Override
+    public boolean isUpToDate(@Nonnull UUID id) {
+        return importSource.isUpToDate(id);
+    }
+
+    @Override
+    public void release(@Nonnull UUID id) {
+        importSource.release(id);
+    }
+
+    @Override
+    public void close() {
+        importSource.close();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import me.val_mobile.data.RSVConfig;
+import me.val_mobile.rsv.RSVPlugin;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Where a module keeps its per-player data. Unless {@link #isThreadSafe()} says otherwise, implementations
+ * must allow {@link #load(UUID)} and {@link #save(Collection)} to be called from threads other than the main thread
+ * @param <T> The type of record stored
+ */
+public interface PlayerDataStorage<T extends PlayerRecord> {
+
+    /**
+     * Reads a player's record
+     * @param id The player's UUID
+     * @return The stored record or null if the player has no saved data
+     */
+    @Nullable
+    T load(@Nonnull UUID id);
+
+    /**
+     * Writes a batch of records
+     * @param records The records to write
+     * @return The players whose records were not written because another server changed their data since this
+     * server last read or wrote it, the caller still owns those records and has to keep them
+     */
+    @Nonnull
+    Set<UUID> save(@Nonnull Collection<T> records);
+
+    /**
+     * Checks whether a player's stored data is still what this server last read or wrote, which is
+     * not the case when another server sharing the data folder saved the player in the meantime
+     * @param id The player's UUID
+     * @return Whether nothing else changed the player's data
+     */
+    default boolean isUpToDate(@Nonnull UUID id) {
+        return true;
+    }
+
+    /**
+     * @param id The player's UUID
+     * @return The version of the player's data this server last read or wrote, or -1 if there is none or the storage does not keep versions
+     */
+    default long getVersion(@Nonnull UUID id) {
+        return -1;
+    }
+
+    /**
+     * Makes the next {@link #save(Collection)} of a player only go through if their stored data is still at a version,
+     * used for records that were held back before a restart
+     * @param id The player's UUID
+     * @param version The version the record was based on
+     */
+    default void expectVersion(@Nonnull UUID id, long version) {}
+
+    /**
+     * Drops anything held in memory for a player who left the server
+     * @param id The player's UUID
+     */
+    void release(@Nonnull UUID id);
+
+    void close();
+
+    /**
+     * @return Whether loading and saving may happen off the main thread
+     */
+    default boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * Opens the storage layout selected in config.yml for a module
+     * @param plugin The plugin
+     * @param folder The module's folder inside "resources", e.g. "toughasnails"
+     * @param codec The codec for the module's records
+     * @return The storage
+     */
+    @Nonnull
+    static <T extends PlayerRecord> PlayerDataStorage<T> open(@Nonnull RSVPlugin plugin, @Nonnull String folder, @Nonnull RecordCodec<T> codec) {
+        String legacyPath = "resources/" + folder + "/playerdata.yml";
+        StorageType type = StorageType.fromConfig(plugin.getConfig());
+
+        if (type == StorageType.SHARED) {
+            return new YamlStorage<>(new RSVConfig(plugin, legacyPath), codec);
+        }
+
+        File directory = new File(plugin.getDataFolder(), "resources/" + folder + "/playerdata");
+        File legacyFile = new File(plugin.getDataFolder(), legacyPath);
+
+        if (legacyFile.exists()) {
+            ShardedYamlStorage.migrate(plugin, legacyFile, directory);
+        }
+        ShardedYamlStorage<T> sharded = new ShardedYamlStorage<>(directory, codec);
+
+        if (type == StorageType.PLAYER_DATA && codec instanceof PdcRecordCodec<T> pdcCodec) {
+            return new PdcStorage<>(pdcCodec, sharded);
+        }
+
+        if (type == StorageType.SQLITE && codec instanceof SqlRecordCodec<T> sqlCodec) {
+            try {
+                SqliteStorage<T> sqlite = new SqliteStorage<>(new File(plugin.getDataFolder(), "resources/" + folder + "/playerdata.db"), sqlCodec);
+
+                if (sqlite.isEmpty()) {
+                    int imported = sqlite.importFrom(sharded);
+
+                    if (imported > 0) {
+                        plugin.getLogger().info("Copied " + imported + " players from " + directory.getName() + "/ into " + folder + "/playerdata.db");
+                    }
+                }
+                return sqlite;
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Could not open the " + folder + " player database, falling back to per-player files");
+                e.printStackTrace();
+            }
+        }
+        return sharded;
+    }
+}
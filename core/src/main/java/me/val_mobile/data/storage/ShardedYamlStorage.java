@@ -0,0 +1,273 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import me.val_mobile.data.ConfigWriter;
+import me.val_mobile.rsv.RSVPlugin;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps one small YAML file per player, so loading and saving a player only touches that player's file.
+ * Every file carries a version that goes up with each save. A save only goes through when the file is
+ * still at the version this server last read or wrote, so when several servers share the folder a stale
+ * server can never overwrite data written by another one
+ * @param <T> The type of record stored
+ */
+public class ShardedYamlStorage<T extends PlayerRecord> implements PlayerDataStorage<T> {
+
+    private static final String VERSION_KEY = "Version";
+    private static final Pattern UUID_KEY = Pattern.compile("^['\"]?([0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12})['\"]?:\\s*(\\{})?\\s*$");
+
+    private final File directory;
+    private final File lockFile;
+    private final RecordCodec<T> codec;
+    private final Map<UUID, Long> versions = new ConcurrentHashMap<>();
+
+    public ShardedYamlStorage(@Nonnull File directory, @Nonnull RecordCodec<T> codec) {
+        this.directory = directory;
+        this.lockFile = new File(directory, ".lock");
+        this.codec = codec;
+
+        directory.mkdirs();
+    }
+
+    @Nullable
+    @Override
+    public T load(@Nonnull UUID id) {
+        File file = getFile(id);
+
+        if (!file.exists()) {
+            return null;
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+
+        try {
+            config.load(file);
+        } catch (IOException | InvalidConfigurationException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        versions.put(id, config.getLong(VERSION_KEY, 0));
+        return codec.read(id, config);
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Set<UUID> save(@Nonnull Collection<T> records) {
+        if (records.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<UUID> conflicts = new HashSet<>();
+
+        // the lock keeps other servers from writing between the version check and the write
+        try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            for (T record : records) {
+                UUID id = record.id();
+                File file = getFile(id);
+                long stored = readVersion(file);
+                long expected = versions.getOrDefault(id, stored);
+
+                if (stored != expected) {
+                    conflicts.add(id);
+                    continue;
+                }
+
+                YamlConfiguration config = new YamlConfiguration();
+                config.set(VERSION_KEY, expected + 1);
+                codec.write(record, config);
+
+                ConfigWriter.writeAtomically(file.toPath(), config.saveToString());
+                versions.put(id, expected + 1);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return conflicts;
+    }
+
+    @Override
+    public boolean isUpToDate(@Nonnull UUID id) {
+        Long version = versions.get(id);
+
+        try {
+            return version == null || version == readVersion(getFile(id));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public long getVersion(@Nonnull UUID id) {
+        return versions.getOrDefault(id, -1L);
+    }
+
+    @Override
+    public void expectVersion(@Nonnull UUID id, long version) {
+        versions.put(id, version);
+    }
+
+    @Override
+    public void release(@Nonnull UUID id) {
+        versions.remove(id);
+    }
+
+    @Override
+    public void close() {}
+
+    @Nonnull
+    public File getFile(@Nonnull UUID id) {
+        return new File(directory, id + ".yml");
+    }
+
+    /**
+     * @return The UUIDs of every player with a file
+     */
+    @Nonnull
+    public List<UUID> getIds() {
+        List<UUID> ids = new ArrayList<>();
+        String[] names = directory.list((dir, name) -> name.endsWith(".yml"));
+
+        if (names != null) {
+            for (String name : names) {
+                try {
+                    ids.add(UUID.fromString(name.substring(0, name.length() - 4)));
+                } catch (IllegalArgumentException ignored) {}
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Reads the version of a player's file. The version is always the first line, so the rest of the file is not parsed
+     * @return The version or 0 if the file does not exist or predates versioning
+     */
+    private static long readVersion(@Nonnull File file) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+
+            if (line != null && line.startsWith(VERSION_KEY + ":")) {
+                try {
+                    return Long.parseLong(line.substring(VERSION_KEY.length() + 1).trim());
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Splits a shared playerdata.yml into per-player files. The file is read line by line and each
+     * top level UUID section is copied out as-is, so the whole file is never held in memory.
+     * Players that already have their own file are skipped since that file is newer
+     * @param plugin The plugin
+     * @param legacyFile The shared playerdata.yml
+     * @param directory The directory holding the per-player files
+     */
+    public static void migrate(@Nonnull RSVPlugin plugin, @Nonnull File legacyFile, @Nonnull File directory) {
+        directory.mkdirs();
+
+        int migrated = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(legacyFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            String currentId = null;
+            List<String> lines = new ArrayList<>();
+
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !Character.isWhitespace(line.charAt(0))) {
+                    // a new top level key ends the previous player's section
+                    if (currentId != null && writeShard(directory, currentId, lines)) {
+                        migrated++;
+                    }
+                    lines.clear();
+
+                    Matcher matcher = UUID_KEY.matcher(line);
+                    currentId = matcher.matches() ? matcher.group(1).toLowerCase() : null;
+                }
+                else if (currentId != null) {
+                    lines.add(line);
+                }
+            }
+
+            if (currentId != null && writeShard(directory, currentId, lines)) {
+                migrated++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        File backup = new File(legacyFile.getParentFile(), legacyFile.getName() + ".migrated");
+
+        if (legacyFile.renameTo(backup)) {
+            plugin.getLogger().info("Moved " + migrated + " players from " + legacyFile.getName() + " into " + directory.getName() + "/");
+        }
+    }
+
+    private static boolean writeShard(@Nonnull File directory, @Nonnull String id, @Nonnull List<String> lines) throws IOException {
+        Path path = new File(directory, id + ".yml").toPath();
+
+        if (Files.exists(path)) {
+            return false;
+        }
+
+        int indent = Integer.MAX_VALUE;
+
+        for (String line : lines) {
+            if (!line.isBlank()) {
+                indent = Math.min(indent, line.length() - line.stripLeading().length());
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path.resolveSibling(id + ".yml.tmp"), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line.isBlank() ? "" : line.substring(indent));
+                writer.newLine();
+            }
+        }
+
+        Files.move(path.resolveSibling(id + ".yml.tmp"), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import javax.annotation.Nonnull;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A codec that can also store records as table rows, needed for the SQLite storage
+ * @param <T> The type of record
+ */
+public interface SqlRecordCodec<T extends PlayerRecord> extends RecordCodec<T> {
+
+    /**
+     * @return The name of the table holding the records
+     */
+    @Nonnull
+    String getTable();
+
+    /**
+     * @return The column definitions after the uuid column, in the same order as {@link #getColumnNames()}
+     */
+    @Nonnull
+    List<String> getColumnDefinitions();
+
+    @Nonnull
+    List<String> getColumnNames();
+
+    /**
+     * Binds a record's columns to a statement
+     * @param record The record
+     * @param statement The statement
+     * @param index The parameter index of the first column
+     */
+    void bind(@Nonnull T record, @Nonnull PreparedStatement statement, int index) throws SQLException;
+
+    /**
+     * Reads a record from the current row
+     * @param id The player's UUID
+     * @param result The result set positioned on the player's row
+     * @return The record
+     */
+    @Nonnull
+    T read(@Nonnull UUID id, @Nonnull ResultSet result) throws SQLException;
+}
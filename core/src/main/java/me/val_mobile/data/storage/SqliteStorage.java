@@ -0,0 +1,161 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps a module's player data in an embedded SQLite database, one row per player, so a save
+ * only touches the rows of players that changed. Uses the SQLite driver bundled with the server
+ * @param <T> The type of record stored
+ */
+public class SqliteStorage<T extends PlayerRecord> implements PlayerDataStorage<T> {
+
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    private final SqlRecordCodec<T> codec;
+    private final Connection connection;
+    private final String selectSql;
+    private final String upsertSql;
+
+    public SqliteStorage(@Nonnull File file, @Nonnull SqlRecordCodec<T> codec) throws SQLException {
+        this.codec = codec;
+
+        file.getParentFile().mkdirs();
+        this.connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+
+        String table = codec.getTable();
+        List<String> columns = codec.getColumnNames();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " (uuid TEXT PRIMARY KEY NOT NULL, " + String.join(", ", codec.getColumnDefinitions()) + ")");
+        }
+
+        List<String> updates = new ArrayList<>();
+        for (String column : columns) {
+            updates.add(column + " = excluded." + column);
+        }
+
+        this.selectSql = "SELECT " + String.join(", ", columns) + " FROM " + table + " WHERE uuid = ?";
+        this.upsertSql = "INSERT INTO " + table + " (uuid, " + String.join(", ", columns) + ") VALUES (?" + ", ?".repeat(columns.size()) + ") " +
+                "ON CONFLICT(uuid) DO UPDATE SET " + String.join(", ", updates);
+    }
+
+    @Nullable
+    @Override
+    public synchronized T load(@Nonnull UUID id) {
+        try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+            statement.setString(1, id.toString());
+
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? codec.read(id, result) : null;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Set<UUID> save(@Nonnull Collection<T> records) {
+        if (records.isEmpty()) {
+            return Set.of();
+        }
+
+        try {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql)) {
+                for (T record : records) {
+                    statement.setString(1, record.id().toString());
+                    codec.bind(record, statement, 2);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Set.of();
+    }
+
+    @Override
+    public void release(@Nonnull UUID id) {}
+
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT 1 FROM " + codec.getTable() + " LIMIT 1")) {
+            return !result.next();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Copies every player from per-player YAML files, used the first time the database is created
+     * @param source The per-player storage
+     * @return The number of players copied
+     */
+    public int importFrom(@Nonnull ShardedYamlStorage<T> source) {
+        int imported = 0;
+        List<T> batch = new ArrayList<>();
+
+        for (UUID id : source.getIds()) {
+            T record = source.load(id);
+
+            if (record != null) {
+                batch.add(record);
+            }
+
+            if (batch.size() >= IMPORT_BATCH_SIZE) {
+                save(batch);
+                imported += batch.size();
+                batch.clear();
+            }
+        }
+
+        save(batch);
+        return imported + batch.size();
+    }
+}
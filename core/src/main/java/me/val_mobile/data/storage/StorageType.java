@@ -0,0 +1,42 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import javax.annotation.Nullable;
+
+public enum StorageType {
+
+    SHARED,      // one YAML file per module holding every player, the original layout
+    PER_PLAYER,  // one small YAML file per player
+    SQLITE,      // an embedded SQLite database per module
+    PLAYER_DATA; // inside the player's own .dat file, for modules that support it
+
+    public static StorageType fromConfig(@Nullable FileConfiguration config) {
+        String type = config == null ? null : config.getString("PlayerData.Storage");
+
+        if (type != null) {
+            for (StorageType value : values()) {
+                if (value.name().equalsIgnoreCase(type.replace('-', '_'))) {
+                    return value;
+                }
+            }
+        }
+        return PER_PLAYER;
+    }
+}
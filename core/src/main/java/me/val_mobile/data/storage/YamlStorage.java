@@ -0,0 +1,90 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import me.val_mobile.data.RSVConfig;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The original layout: every player is a section in one YAML file, so each save rewrites all of them
+ * @param <T> The type of record stored
+ */
+public class YamlStorage<T extends PlayerRecord> implements PlayerDataStorage<T> {
+
+    private final RSVConfig config;
+    private final RecordCodec<T> codec;
+
+    public YamlStorage(@Nonnull RSVConfig config, @Nonnull RecordCodec<T> codec) {
+        this.config = config;
+        this.codec = codec;
+    }
+
+    @Nullable
+    @Override
+    public T load(@Nonnull UUID id) {
+        synchronized (config) {
+            ConfigurationSection section = config.getConfig().getConfigurationSection(id.toString());
+
+            return section == null ? null : codec.read(id, section);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Set<UUID> save(@Nonnull Collection<T> records) {
+        if (records.isEmpty()) {
+            return Set.of();
+        }
+
+        synchronized (config) {
+            FileConfiguration fileConfig = config.getConfig();
+
+            for (T record : records) {
+                String path = record.id().toString();
+                ConfigurationSection section = fileConfig.getConfigurationSection(path);
+
+                codec.write(record, section == null ? fileConfig.createSection(path) : section);
+            }
+
+            try {
+                fileConfig.save(config.getFile());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return Set.of();
+    }
+
+    @Override
+    public void release(@Nonnull UUID id) {}
+
+    @Override
+    public void close() {}
+
+    @Nonnull
+    public RSVConfig getConfig() {
+        return config;
+    }
+}
@@ -16,90 +16,53 @@
  */
 package me.val_mobile.data.toughasnails;
 
-import me.val_mobile.data.RSVConfig;
 import me.val_mobile.data.RSVDataModule;
 import me.val_mobile.data.RSVModule;
+import me.val_mobile.data.storage.PlayerDataStorage;
 import me.val_mobile.tan.TanModule;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
-import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.UUID;
 
 public class DataModule implements RSVDataModule {
 
     private final UUID id;
     private final FileConfiguration userConfig;
-    private final RSVConfig playerDataConfig;
+    private final PlayerDataStorage<TanRecord> storage;
     private double temperature;
     private int thirst;
     private double thirstExhaustion;
     private int thirstSaturation;
     private int thirstTickTimer;
+    private boolean dirty = false;
 
     public void setTemperature(double temperature) {
         this.temperature = temperature;
-
-        FileConfiguration config = playerDataConfig.getConfig();
-        String tempPath = id + ".Temperature";
-
-        if (!config.contains(tempPath)) {
-            config.createSection(tempPath);
-        }
-        config.set(tempPath, temperature);
-        saveFile(config);
+        dirty = true;
     }
 
     public void setThirst(int thirst) {
         this.thirst = thirst;
-
-        FileConfiguration config = playerDataConfig.getConfig();
-        String thirstPath = id + ".Thirst";
-
-        if (!config.contains(thirstPath)) {
-            config.createSection(thirstPath);
-        }
-        config.set(thirstPath, thirst);
-        saveFile(config);
+        dirty = true;
     }
 
     public void setThirstExhaustion(double thirstExhaustion) {
         this.thirstExhaustion = thirstExhaustion;
-
-        FileConfiguration config = playerDataConfig.getConfig();
-        String exhaustionPath = id + ".ThirstExhaustion";
-
-        if (!config.contains(exhaustionPath)) {
-            config.createSection(exhaustionPath);
-        }
-        config.set(exhaustionPath, thirstExhaustion);
-        saveFile(config);
+        dirty = true;
     }
 
-    public void setThirstSaturation(double thirstSaturation) {
-        this.thirstExhaustion = thirstSaturation;
-
-        FileConfiguration config = playerDataConfig.getConfig();
-        String saturationPath = id + ".ThirstSaturation";
-
-        if (!config.contains(saturationPath)) {
-            config.createSection(saturationPath);
-        }
-        config.set(saturationPath, thirstSaturation);
-        saveFile(config);
+    public void setThirstSaturation(int thirstSaturation) {
+        this.thirstSaturation = thirstSaturation;
+        dirty = true;
     }
 
     public void setThirstTickTimer(int thirstTickTimer) {
         this.thirstTickTimer = thirstTickTimer;
-
-        FileConfiguration config = playerDataConfig.getConfig();
-        String tickTimerPath = id + ".ThirstTickTimer";
-
-        if (!config.contains(tickTimerPath)) {
-            config.createSection(tickTimerPath);
-        }
-        config.set(tickTimerPath, thirstTickTimer);
-        saveFile(config);
+        dirty = true;
     }
 
     public double getTemperature() {
@@ -126,125 +89,66 @@ public class DataModule implements RSVDataModule {
         TanModule module = (TanModule) RSVModule.getModule(TanModule.NAME);
 
         this.userConfig = module.getUserConfig().getConfig();
-        this.playerDataConfig = module.getPlayerDataConfig();
+        this.storage = module.getPlayerDataStorage();
         this.id = player.getUniqueId();
     }
 
     @Override
     public void retrieveData() {
-        FileConfiguration config = playerDataConfig.getConfig();
-
-        String tempPath = id + ".Temperature";
-        String thirstPath = id + ".Thirst";
-        String saturationPath = id + ".ThirstSaturation";
-        String exhaustionPath = id + ".ThirstExhaustion";
-        String tickTimerPath = id + ".ThirstTickTimer";
-
-        double defaultTemp = userConfig.getDouble("Temperature.DefaultTemperature");
-        int defaultThirst = userConfig.getInt("Thirst.DefaultThirst");
-        int defaultSaturation = userConfig.getInt("Thirst.DefaultSaturation");
-        double defaultExhaustion = userConfig.getDouble("Thirst.DefaultExhaustion");
-        int defaultTickTimer = userConfig.getInt("Thirst.DefaultExhaustionTickTimer");
-
-        if (!config.contains(id.toString())) {
-            config.createSection(id.toString());
-        }
-
-        if (config.contains(tempPath)) {
-            temperature = config.getDouble(tempPath);
-        }
-        else {
-            temperature = defaultTemp;
-
-            config.createSection(tempPath);
-            config.set(tempPath, temperature);
-        }
-
-        if (config.contains(thirstPath)) {
-            thirst = config.getInt(thirstPath);
-        }
-        else {
-            thirst = defaultThirst;
-
-            config.createSection(thirstPath);
-            config.set(tempPath, thirst);
-        }
-
-        if (config.contains(saturationPath)) {
-            thirstSaturation = config.getInt(saturationPath);
-        }
-        else {
-            thirstSaturation = defaultSaturation;
-
-            config.createSection(saturationPath);
-            config.set(saturationPath, thirstSaturation);
-        }
-
-        if (config.contains(exhaustionPath)) {
-            thirstExhaustion = config.getDouble(exhaustionPath);
-        }
-        else {
-            thirstExhaustion = defaultExhaustion;
-
-            config.createSection(exhaustionPath);
-            config.set(exhaustionPath, thirstExhaustion);
-        }
+        attach(storage.load(id));
+    }
 
-        if (config.contains(tickTimerPath)) {
-            thirstTickTimer = config.getInt(tickTimerPath);
+    /**
+     * Replaces the in-memory stats with a record that was already loaded
+     * @param record The player's saved stats or null to use the defaults
+     */
+    public void attach(@Nullable TanRecord record) {
+        if (record == null) {
+            temperature = userConfig.getDouble("Temperature.DefaultTemperature");
+            thirst = userConfig.getInt("Thirst.DefaultThirst");
+            thirstSaturation = userConfig.getInt("Thirst.DefaultSaturation");
+            thirstExhaustion = userConfig.getDouble("Thirst.DefaultExhaustion");
+            thirstTickTimer = userConfig.getInt("Thirst.DefaultExhaustionTickTimer");
+
+            // new players are written out by the next flush instead of during the join
+            dirty = true;
         }
         else {
-            thirstTickTimer = defaultTickTimer;
-
-            config.createSection(tickTimerPath);
-            config.set(tickTimerPath, thirstTickTimer);
+            temperature = record.temperature();
+            thirst = record.thirst();
+            thirstSaturation = record.thirstSaturation();
+            thirstExhaustion = record.thirstExhaustion();
+            thirstTickTimer = record.thirstTickTimer();
+            dirty = false;
         }
-
-        saveFile(config);
     }
 
     @Override
     public void saveData() {
-        FileConfiguration config = this.playerDataConfig.getConfig();
-
-        String tempPath = id + ".Temperature";
-        String thirstPath = id + ".Thirst";
-        String saturationPath = id + ".ThirstSaturation";
-        String exhaustionPath = id + ".ThirstExhaustion";
-        String tickTimer = id + ".ThirstTickTimer";
-
-        if (!config.contains(id.toString()))
-            config.createSection(id.toString());
-        if (!config.contains(tempPath)) {
-            config.createSection(tempPath);
-        }
-        if (!config.contains(thirstPath)) {
-            config.createSection(thirstPath);
-        }
-        if (!config.contains(saturationPath)) {
-            config.createSection(saturationPath);
-        }
-        if (!config.contains(exhaustionPath)) {
-            config.createSection(exhaustionPath);
-        }
-        if (!config.contains(tickTimer)) {
-            config.createSection(tickTimer);
-        }
+        storage.save(List.of(snapshot()));
+    }
+
+    /**
+     * Copies the in-memory stats and clears the dirty flag
+     * @return An immutable copy of the player's stats
+     */
+    @Nonnull
+    public TanRecord snapshot() {
+        dirty = false;
+        return new TanRecord(id, temperature, thirst, thirstSaturation, thirstExhaustion, thirstTickTimer);
+    }
 
-        config.set(tempPath, temperature);
-        config.set(thirstPath, thirst);
-        config.set(saturationPath, thirstSaturation);
-        config.set(exhaustionPath, thirstExhaustion);
-        config.set(tickTimer, thirstTickTimer);
+    public boolean isDirty() {
+        return dirty;
+    }
 
-        saveFile(config);
+    @Nonnull
+    public UUID getId() {
+        return id;
     }
 
-    public void saveFile(FileConfiguration config) {
-        try {
-            config.save(this.playerDataConfig.getFile());
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    @Nonnull
+    public PlayerDataStorage<TanRecord> getStorage() {
+        return storage;
     }
 }
@@ -0,0 +1,28 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.toughasnails;
+
+import me.val_mobile.data.storage.PlayerRecord;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+
+/**
+ * Immutable copy of a player's Tough As Nails stats, taken on the main thread
+ * so it can be written to disk from another thread
+ */
+public record TanRecord(@Nonnull UUID id, double temperature, int thirst, int thirstSaturation, double thirstExhaustion, int thirstTickTimer) implements PlayerRecord {}
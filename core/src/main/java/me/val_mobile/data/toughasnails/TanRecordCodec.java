@@ -0,0 +1,131 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.toughasnails;
+
+import me.val_mobile.data.storage.PdcRecordCodec;
+import me.val_mobile.data.storage.SqlRecordCodec;
+import me.val_mobile.tan.TanModule;
+import me.val_mobile.utils.Utils;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+public class TanRecordCodec implements SqlRecordCodec<TanRecord>, PdcRecordCodec<TanRecord> {
+
+    private final TanModule module;
+
+    public TanRecordCodec(TanModule module) {
+        this.module = module;
+    }
+
+    @Override
+    public void write(@Nonnull TanRecord record, @Nonnull ConfigurationSection section) {
+        section.set("Temperature", record.temperature());
+        section.set("Thirst", record.thirst());
+        section.set("ThirstSaturation", record.thirstSaturation());
+        section.set("ThirstExhaustion", record.thirstExhaustion());
+        section.set("ThirstTickTimer", record.thirstTickTimer());
+    }
+
+    @Nonnull
+    @Override
+    public TanRecord read(@Nonnull UUID id, @Nonnull ConfigurationSection section) {
+        FileConfiguration userConfig = module.getUserConfig().getConfig();
+
+        double temperature = section.getDouble("Temperature", userConfig.getDouble("Temperature.DefaultTemperature"));
+        int thirst = section.getInt("Thirst", userConfig.getInt("Thirst.DefaultThirst"));
+        int saturation = section.getInt("ThirstSaturation", userConfig.getInt("Thirst.DefaultSaturation"));
+        double exhaustion = section.getDouble("ThirstExhaustion", userConfig.getDouble("Thirst.DefaultExhaustion"));
+        int tickTimer = section.getInt("ThirstTickTimer", userConfig.getInt("Thirst.DefaultExhaustionTickTimer"));
+
+        return new TanRecord(id, temperature, thirst, saturation, exhaustion, tickTimer);
+    }
+
+    @Nonnull
+    @Override
+    public String getTable() {
+        return "tan_players";
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getColumnDefinitions() {
+        return List.of("temperature REAL NOT NULL", "thirst INTEGER NOT NULL", "thirst_saturation INTEGER NOT NULL", "thirst_exhaustion REAL NOT NULL", "thirst_tick_timer INTEGER NOT NULL");
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getColumnNames() {
+        return List.of("temperature", "thirst", "thirst_saturation", "thirst_exhaustion", "thirst_tick_timer");
+    }
+
+    @Override
+    public void bind(@Nonnull TanRecord record, @Nonnull PreparedStatement statement, int index) throws SQLException {
+        statement.setDouble(index, record.temperature());
+        statement.setInt(index + 1, record.thirst());
+        statement.setInt(index + 2, record.thirstSaturation());
+        statement.setDouble(index + 3, record.thirstExhaustion());
+        statement.setInt(index + 4, record.thirstTickTimer());
+    }
+
+    @Nonnull
+    @Override
+    public TanRecord read(@Nonnull UUID id, @Nonnull ResultSet result) throws SQLException {
+        return new TanRecord(id, result.getDouble("temperature"), result.getInt("thirst"), result.getInt("thirst_saturation"), result.getDouble("thirst_exhaustion"), result.getInt("thirst_tick_timer"));
+    }
+
+    @Override
+    public void write(@Nonnull TanRecord record, @Nonnull Player player) {
+        Utils.addNbtTag(player, "rsvtemperature", record.temperature(), PersistentDataType.DOUBLE);
+        Utils.addNbtTag(player, "rsvthirst", record.thirst(), PersistentDataType.INTEGER);
+        Utils.addNbtTag(player, "rsvthirstsaturation", record.thirstSaturation(), PersistentDataType.INTEGER);
+        Utils.addNbtTag(player, "rsvthirstexhaustion", record.thirstExhaustion(), PersistentDataType.DOUBLE);
+        Utils.addNbtTag(player, "rsvthirsttimer", record.thirstTickTimer(), PersistentDataType.INTEGER);
+    }
+
+    @Nullable
+    @Override
+    public TanRecord read(@Nonnull Player player) {
+        if (!Utils.hasNbtTag(player, "rsvtemperature")) {
+            return null;
+        }
+
+        FileConfiguration userConfig = module.getUserConfig().getConfig();
+
+        Double temperature = Utils.getNbtTag(player, "rsvtemperature", PersistentDataType.DOUBLE);
+        Integer thirst = Utils.getNbtTag(player, "rsvthirst", PersistentDataType.INTEGER);
+        Integer saturation = Utils.getNbtTag(player, "rsvthirstsaturation", PersistentDataType.INTEGER);
+        Double exhaustion = Utils.getNbtTag(player, "rsvthirstexhaustion", PersistentDataType.DOUBLE);
+        Integer tickTimer = Utils.getNbtTag(player, "rsvthirsttimer", PersistentDataType.INTEGER);
+
+        return new TanRecord(player.getUniqueId(),
+                temperature == null ? userConfig.getDouble("Temperature.DefaultTemperature") : temperature,
+                thirst == null ? userConfig.getInt("Thirst.DefaultThirst") : thirst,
+                saturation == null ? userConfig.getInt("Thirst.DefaultSaturation") : saturation,
+                exhaustion == null ? userConfig.getDouble("Thirst.DefaultExhaustion") : exhaustion,
+                tickTimer == null ? userConfig.getInt("Thirst.DefaultExhaustionTickTimer") : tickTimer);
+    }
+}
@@ -19,32 +19,39 @@ package me.val_mobile.integrations;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import me.val_mobile.data.RSVModule;
 import me.val_mobile.rsv.RSVPlugin;
+import me.val_mobile.tan.SurvivalStats;
 import me.val_mobile.tan.TanModule;
-import me.val_mobile.tan.TempManager;
 import me.val_mobile.tan.TemperatureCalculateTask;
-import me.val_mobile.tan.ThirstManager;
 import me.val_mobile.utils.CharacterValues;
 import me.val_mobile.utils.Utils;
-import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RSVExpansion extends PlaceholderExpansion {
 
+    private static final int MAX_CACHED = 1024;
+    private static final Placeholder INVALID = new Placeholder(Kind.INVALID, null, 0);
+
     private final RSVPlugin plugin;
-    private final TempManager tempManager;
-    private final ThirstManager thirstManager;
+    private final TanModule module;
     private final CharacterValues charValues;
+    private final Map<String, Placeholder> placeholders = new ConcurrentHashMap<>();
+    // the last value of every placeholder a player requested, dropped with the player object when they leave
+    private final Map<Player, Map<Placeholder, Memo>> memos = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<String, Long> lastErrors = new ConcurrentHashMap<>();
+    private volatile Settings settings;
 
     public RSVExpansion(RSVPlugin plugin) {
         this.plugin = plugin;
-        TanModule module = (TanModule) RSVModule.getModule(TanModule.NAME);
-        this.tempManager = module.getTempManager();
-        this.thirstManager = module.getThirstManager();
+        this.module = (TanModule) RSVModule.getModule(TanModule.NAME);
         this.charValues = new CharacterValues();
     }
 
@@ -70,133 +77,276 @@ public class RSVExpansion extends PlaceholderExpansion {
 
     @Override
     public @Nullable String onPlaceholderRequest(Player player, @Nonnull String params) {
-        String[] args = params.split("_");
+        Placeholder placeholder = getPlaceholder(params);
 
-        if (args.length == 0) {
+        if (placeholder.kind() == Kind.INVALID) {
             printErrorMessage(params);
             return "";
         }
 
-        switch (args[0]) {
-            case "tan" -> {
-                if (!RSVModule.getModule(TanModule.NAME).isEnabled(player)) {
-                    printErrorMessage(params);
-                    return "";
-                }
+        // placeholders are requested from any thread, so nothing is read from the player or their world, only from the copy published every tick
+        SurvivalStats.Snapshot stats = player == null ? null : module.getSurvivalStats().getSnapshot(player.getUniqueId());
+        boolean available = stats != null && stats.enabled() && switch (placeholder.kind()) {
+            case TEMP_NUMERIC, TEMP_BAR, TEMP_VIGNETTE -> stats.temperatureEnabled();
+            case THIRST_NUMERIC, THIRST_BAR, THIRST_VIGNETTE -> stats.thirstEnabled();
+            case HUD -> stats.temperatureEnabled() && stats.thirstEnabled();
+            case INVALID -> false;
+        };
 
-                if (args.length < 3) {
-                    printErrorMessage(params);
-                    return "";
-                }
-                switch (args[1]) {
-                    case "temp" -> {
-                        if (!tempManager.isTempEnabled(player)) {
-                            printErrorMessage(params);
-                            return "";
-                        }
+        if (!available) {
+            printErrorMessage(params);
+            return "";
+        }
 
-                        double internalTemp = tempManager.getTemperature(player);
-
-                        switch (args[2]) {
-                            case "numeric" -> {
-                                if (args.length < 5) {
-                                    printErrorMessage(params);
-                                    return "";
-                                }
-
-                                double temp;
-
-                                int decimalplaces;
-
-                                try {
-                                    decimalplaces = Integer.parseInt(args[4]);
-                                } catch (NumberFormatException e) {
-                                    return "";
-                                }
-
-                                FileConfiguration intConfig = plugin.getIntegrationsConfig();
-                                double celsius = 2 * internalTemp / (TemperatureCalculateTask.MAXIMUM_TEMPERATURE * (internalTemp > TemperatureCalculateTask.NEUTRAL_TEMPERATURE ? intConfig.getDouble(RealisticSeasons.NAME + ".HotMultiplier") : intConfig.getDouble(RealisticSeasons.NAME + ".ColdMultiplier"))) + intConfig.getDouble(RealisticSeasons.NAME + ".DefaultTemperature");
-
-                                switch (args[3]) {
-                                    case "internal" -> temp = internalTemp;
-                                    case "celsius" -> temp = celsius;
-                                    case "fahrenheit" -> temp = celsius * 9D/5 + 32;
-                                    case "kelvin" -> temp = celsius + 273.15;
-                                    default -> {
-                                        printErrorMessage(params);
-                                        return "";
-                                    }
-                                }
-
-                                return String.valueOf(Utils.round(temp, decimalplaces));
-                            }
-                            case "bar" -> {
-                                return charValues.getTemperature(player, (int) Math.round(internalTemp));
-                            }
-                            case "vignette" -> {
-                                return charValues.getFireVignette(player, (int) Math.round(internalTemp));
-                            }
-                            default -> {}
-                        }
-                    }
-                    case "thirst" -> {
-                        if (args.length < 4) {
-                            printErrorMessage(params);
-                            return "";
-                        }
+        double temp = stats.temperatureEnabled() ? stats.temperature() : 0D;
+        double thirst = stats.thirstEnabled() ? stats.thirst() : 0D;
+        int flags = 0;
+
+        if (placeholder.kind() == Kind.THIRST_BAR || placeholder.kind() == Kind.HUD) {
+            flags = (stats.underwater() ? 1 : 0) | (stats.parasites() ? 2 : 0);
+        }
+
+        Settings settings = getSettings();
+        FileConfiguration tanConfig = module.getUserConfig().getConfig();
+
+        // characters with player placeholders can change without the stats changing
+        if (!settings.memoize() || !isStatic(placeholder)) {
+            return render(player, placeholder, settings, temp, thirst, flags);
+        }
+
+        Map<Placeholder, Memo> playerMemos;
+        synchronized (memos) {
+            playerMemos = memos.computeIfAbsent(player, p -> new HashMap<>());
+        }
+
+        synchronized (playerMemos) {
+            Memo memo = playerMemos.get(placeholder);
+
+            if (memo != null && memo.matches(temp, thirst, flags, settings, tanConfig)) {
+                return memo.value();
+            }
+        }
+
+        String value = render(player, placeholder, settings, temp, thirst, flags);
+
+        synchronized (playerMemos) {
+            playerMemos.put(placeholder, new Memo(temp, thirst, flags, settings, tanConfig, value));
+        }
+        return value;
+    }
+
+    @Nonnull
+    private String render(@Nullable Player player, @Nonnull Placeholder placeholder, @Nonnull Settings settings, double temp, double thirst, int flags) {
+        boolean isUnderwater = (flags & 1) != 0;
+        boolean parasitesActive = (flags & 2) != 0;
+
+        return switch (placeholder.kind()) {
+            case TEMP_NUMERIC -> {
+                double celsius = 2 * temp / (TemperatureCalculateTask.MAXIMUM_TEMPERATURE * (temp > TemperatureCalculateTask.NEUTRAL_TEMPERATURE ? settings.hotMultiplier() : settings.coldMultiplier())) + settings.defaultTemperature();
+
+                double value = switch (placeholder.unit()) {
+                    case INTERNAL -> temp;
+                    case CELSIUS -> celsius;
+                    case FAHRENHEIT -> celsius * 9D/5 + 32;
+                    case KELVIN -> celsius + 273.15;
+                };
+                yield String.valueOf(Utils.round(value, placeholder.decimalPlaces()));
+            }
+            case TEMP_BAR -> charValues.getTemperature(player, (int) Math.round(temp));
+            case TEMP_VIGNETTE -> charValues.getFireVignette(player, (int) Math.round(temp));
+            case THIRST_NUMERIC -> String.valueOf(Utils.round(thirst, placeholder.decimalPlaces()));
+            case THIRST_BAR -> charValues.getThirst(player, (int) Math.round(thirst), isUnderwater, parasitesActive);
+            case THIRST_VIGNETTE -> charValues.getThirstVignette(player, (int) Math.round(thirst));
+            case HUD -> charValues.getTemperatureThirstActionbar(player, (int) Math.round(temp), (int) Math.round(thirst), isUnderwater, parasitesActive);
+            case INVALID -> "";
+        };
+    }
+
+    private boolean isStatic(@Nonnull Placeholder placeholder) {
+        return switch (placeholder.kind()) {
+            case TEMP_BAR -> charValues.isTemperatureStatic();
+            case TEMP_VIGNETTE -> charValues.isFireVignetteStatic();
+            case THIRST_BAR -> charValues.isThirstStatic();
+            case THIRST_VIGNETTE -> charValues.isThirstVignetteStatic();
+            case HUD -> charValues.isTemperatureThirstActionbarStatic();
+            case TEMP_NUMERIC, THIRST_NUMERIC, INVALID -> true;
+        };
+    }
+
+    @Nonnull
+    private Placeholder getPlaceholder(@Nonnull String params) {
+        Placeholder placeholder = placeholders.get(params);
+
+        if (placeholder == null) {
+            if (placeholders.size() >= MAX_CACHED) {
+                placeholders.clear();
+            }
+            placeholder = parse(params);
+            placeholders.put(params, placeholder);
+        }
+        return placeholder;
+    }
 
-                        if (!thirstManager.isThirstEnabled(player)) {
-                            printErrorMessage(params);
-                            return "";
+    @Nonnull
+    private static Placeholder parse(@Nonnull String params) {
+        String[] args = params.split("_");
+
+        if (args.length < 3 || !args[0].equals("tan")) {
+            return INVALID;
+        }
+
+        switch (args[1]) {
+            case "temp" -> {
+                switch (args[2]) {
+                    case "numeric" -> {
+                        if (args.length < 5) {
+                            return INVALID;
                         }
 
-                        double thirst = thirstManager.getThirst(player);
-
-                        switch (args[2]) {
-                            case "numeric" -> {
-                                int decimalplaces;
-
-                                try {
-                                    decimalplaces = Integer.parseInt(args[3]);
-                                } catch (NumberFormatException e) {
-                                    printErrorMessage(params);
-                                    return "";
-                                }
-
-                                return String.valueOf(Utils.round(thirst, decimalplaces));
-                            }
-                            case "bar" -> {
-                                return charValues.getThirst(player, (int) Math.round(thirst), player.getRemainingAir() < 300 || player.isInWater(), thirstManager.hasParasites(player));
-                            }
-                            case "vignette" -> {
-                                return charValues.getThirstVignette(player, (int) Math.round(thirst));
-                            }
-                            default -> {}
+                        Unit unit = switch (args[3]) {
+                            case "internal" -> Unit.INTERNAL;
+                            case "celsius" -> Unit.CELSIUS;
+                            case "fahrenheit" -> Unit.FAHRENHEIT;
+                            case "kelvin" -> Unit.KELVIN;
+                            default -> null;
+                        };
+                        Integer decimalPlaces = parseDecimalPlaces(args[4]);
+
+                        if (unit == null || decimalPlaces == null) {
+                            return INVALID;
                         }
+                        return new Placeholder(Kind.TEMP_NUMERIC, unit, decimalPlaces);
                     }
-                    case "hud" -> {
-                        if (player == null || !(player.isOnline() && TemperatureCalculateTask.hasTask(player.getUniqueId()) && TemperatureCalculateTask.hasTask(player.getUniqueId()))) {
-                            printErrorMessage(params);
-                            return "";
-                        }
+                    case "bar" -> {
+                        return new Placeholder(Kind.TEMP_BAR, null, 0);
+                    }
+                    case "vignette" -> {
+                        return new Placeholder(Kind.TEMP_VIGNETTE, null, 0);
+                    }
+                    default -> {}
+                }
+            }
+            case "thirst" -> {
+                if (args.length < 4) {
+                    return INVALID;
+                }
 
-                        charValues.getTemperatureThirstActionbar(player, (int) Math.round(tempManager.getTemperature(player)), (int) Math.round(thirstManager.getThirst(player)), player.getRemainingAir() < 300 || player.isInWater(), thirstManager.hasParasites(player));
+                switch (args[2]) {
+                    case "numeric" -> {
+                        Integer decimalPlaces = parseDecimalPlaces(args[3]);
+                        return decimalPlaces == null ? INVALID : new Placeholder(Kind.THIRST_NUMERIC, null, decimalPlaces);
+                    }
+                    case "bar" -> {
+                        return new Placeholder(Kind.THIRST_BAR, null, 0);
+                    }
+                    case "vignette" -> {
+                        return new Placeholder(Kind.THIRST_VIGNETTE, null, 0);
                     }
                     default -> {}
                 }
             }
+            case "hud" -> {
+                return new Placeholder(Kind.HUD, null, 0);
+            }
             default -> {}
         }
+        return INVALID;
+    }
+
+    @Nullable
+    private static Integer parseDecimalPlaces(@Nonnull String arg) {
+        try {
+            return Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 
-        printErrorMessage(params);
-        return "";
+    @Nonnull
+    private Settings getSettings() {
+        FileConfiguration config = plugin.getIntegrationsConfig();
+        Settings settings = this.settings;
+
+        if (settings == null || settings.config() != config) {
+            settings = new Settings(config);
+            this.settings = settings;
+        }
+        return settings;
     }
 
     private void printErrorMessage(@Nonnull String params) {
-        ConfigurationSection section = plugin.getIntegrationsConfig().getConfigurationSection(PAPI.NAME + ".Error");
+        Settings settings = getSettings();
+
+        if (!settings.errorEnabled()) {
+            return;
+        }
+
+        // scoreboards request the same broken placeholder many times per second
+        long now = System.currentTimeMillis();
+        Long last = lastErrors.get(params);
+
+        if (last != null && now - last < settings.errorCooldown()) {
+            return;
+        }
+
+        if (lastErrors.size() >= MAX_CACHED) {
+            lastErrors.clear();
+        }
+        lastErrors.put(params, now);
+
+        plugin.getLogger().info(Utils.translateMsg(settings.errorMessage(), null, Map.of("PLACEHOLDER", "%" + params + "%")));
+    }
+
+    private enum Kind {
+        TEMP_NUMERIC,
+        TEMP_BAR,
+        TEMP_VIGNETTE,
+        THIRST_NUMERIC,
+        THIRST_BAR,
+        THIRST_VIGNETTE,
+        HUD,
+        INVALID
+    }
+
+    private enum Unit {
+        INTERNAL,
+        CELSIUS,
+        FAHRENHEIT,
+        KELVIN
+    }
+
+    /**
+     * A parsed placeholder
+     * @param kind What the placeholder shows
+     * @param unit The temperature unit of numeric temperatures
+     * @param decimalPlaces The decimal places of numeric values
+     */
+    private record Placeholder(@Nonnull Kind kind, @Nullable Unit unit, int decimalPlaces) {}
+
+    /**
+     * The last value of a placeholder and what it was rendered from
+     */
+    private record Memo(double temp, double thirst, int flags, Settings settings, FileConfiguration tanConfig, String value) {
+
+        boolean matches(double temp, double thirst, int flags, Settings settings, FileConfiguration tanConfig) {
+            return this.temp == temp && this.thirst == thirst && this.flags == flags && this.settings == settings && this.tanConfig == tanConfig;
+        }
+    }
 
-        if (section.getBoolean("Enabled")) {
-            plugin.getLogger().info(Utils.translateMsg(section.getString("Message"), null, Map.of("PLACEHOLDER", "%" + params + "%")));
+    /**
+     * The integration config values used by the placeholders
+     */
+    private record Settings(FileConfiguration config, double hotMultiplier, double coldMultiplier, double defaultTemperature, boolean memoize, boolean errorEnabled, String errorMessage, long errorCooldown) {
+
+        Settings(@Nonnull FileConfiguration config) {
+            this(config,
+                    config.getDouble(RealisticSeasons.NAME + ".HotMultiplier"),
+                    config.getDouble(RealisticSeasons.NAME + ".ColdMultiplier"),
+                    config.getDouble(RealisticSeasons.NAME + ".DefaultTemperature"),
+                    config.getBoolean(PAPI.NAME + ".MemoizeResults", true),
+                    config.getBoolean(PAPI.NAME + ".Error.Enabled"),
+                    config.getString(PAPI.NAME + ".Error.Message", ""),
+                    config.getLong(PAPI.NAME + ".Error.Cooldown", 60L) * 1000L);
         }
     }
 }
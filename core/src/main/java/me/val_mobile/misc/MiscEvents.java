@@ -18,6 +18,7 @@ package me.val_mobile.misc;
 
 import me.val_mobile.data.RSVModule;
 import me.val_mobile.data.RSVPlayer;
+import me.val_mobile.data.PreloadedPlayerData;
 import me.val_mobile.rsv.RSVPlugin;
 import me.val_mobile.utils.PlayerJumpEvent;
 import me.val_mobile.utils.RSVItem;
@@ -45,23 +46,77 @@ import org.bukkit.inventory.meta.EnchantmentStorageMeta;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MiscEvents implements Listener {
 
     private final RSVPlugin plugin;
+    private final Map<UUID, PreloadedPlayerData> preloaded = new ConcurrentHashMap<>();
 
     public MiscEvents(RSVPlugin plugin) {
         this.plugin = plugin;
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            // wait for the server the player came from to finish saving them
+            plugin.getSessionLeases().acquire(event.getUniqueId());
+
+            // data queued when the player last quit may still only be in the journal
+            PreloadedPlayerData data = plugin.getPlayerDataFlushTask().load(event.getUniqueId());
+            preloaded.put(event.getUniqueId(), data);
+
+            // no event fires if the client disconnects before logging in, so forget the pre-login after a while
+            int timeout = Math.max(1, plugin.getConfig().getInt("PlayerData.PreLoginTimeoutTicks", 600));
+            Bukkit.getScheduler().runTaskLater(plugin, () -> expirePreLogin(data), timeout);
+        }
+    }
+
+    /**
+     * Drops a pre-login that never turned into a join and gives up the lease taken for it
+     * @param data The data that was preloaded for the pre-login
+     */
+    private void expirePreLogin(PreloadedPlayerData data) {
+        UUID id = data.id();
+
+        // a newer pre-login or the join itself already replaced or consumed the entry
+        if (preloaded.remove(id, data) && Bukkit.getPlayer(id) == null && !RSVPlayer.isValidPlayer(id)) {
+            plugin.getSessionLeases().release(id);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            preloaded.remove(event.getPlayer().getUniqueId());
+
+            if (!RSVPlayer.isValidPlayer(event.getPlayer())) {
+                plugin.getSessionLeases().release(event.getPlayer().getUniqueId());
+            }
+        }
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
+        PreloadedPlayerData data = preloaded.remove(player.getUniqueId());
 
-        if (!RSVPlayer.isValidPlayer(player)) {
+        if (data != null && data.changedElsewhere()) {
+            RSVPlayer.discardSession(player.getUniqueId());
+        }
+
+        if (!(RSVPlayer.isValidPlayer(player) || RSVPlayer.resumeSession(player.getUniqueId()))) {
             RSVPlayer rsvplayer = new RSVPlayer(player);
-            rsvplayer.retrieveData();
+
+            // the pre-login expired, the join must not wait for an autosave that is being written
+            if (data == null) {
+                data = plugin.getPlayerDataFlushTask().peek(player.getUniqueId());
+            }
+            rsvplayer.attachData(data);
         }
 
         Collection<RSVModule> rsvModules = RSVModule.getModules().values();
@@ -82,6 +137,16 @@ public class MiscEvents implements Listener {
 
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        RSVPlayer rsvPlayer = RSVPlayer.getPlayers().get(event.getPlayer().getUniqueId());
+
+        if (rsvPlayer != null) {
+            plugin.getPlayerDataFlushTask().flush(rsvPlayer);
+            RSVPlayer.endSession(event.getPlayer().getUniqueId());
+        }
+    }
+
     @EventHandler
     public void onCraft(PrepareItemCraftEvent event) {
         Recipe r = event.getRecipe();
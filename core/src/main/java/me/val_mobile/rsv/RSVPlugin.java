@@ -57,6 +57,8 @@ public class RSVPlugin extends JavaPlugin {
     private MiscItems miscItems;
     private RSVConfig integrationsConfig;
     private RSVConfig commandsConfig;
+    private PlayerDataFlushTask playerDataFlushTask;
+    private SessionLeases sessionLeases;
 
 //    private static RSVConfig langConfig;
 
@@ -132,6 +134,11 @@ public class RSVPlugin extends JavaPlugin {
         if (config.getConfig().getBoolean("BStats"))
             new BStats(this).recordData();
 
+        this.sessionLeases = new SessionLeases(this);
+        this.playerDataFlushTask = new PlayerDataFlushTask(this);
+        this.playerDataFlushTask.start();
+        RSVPlayer.setRecentCapacity(config.getConfig().getInt("PlayerData.RecentSessionCacheSize", 32));
+
         pm.registerEvents(new MiscEvents(this), this);
         pm.registerEvents(new ItemAcquireEvents(this), this);
 
@@ -145,8 +152,15 @@ public class RSVPlugin extends JavaPlugin {
         Collection<RSVPlayer> players = RSVPlayer.getPlayers().values();
         Collection<RSVModule> modules = RSVModule.getModules().values();
 
-        for (RSVPlayer player : players) {
-            player.saveData();
+        // the flush task writes every online player before giving up their leases, saving them again afterwards
+        // would race the server they move to
+        if (playerDataFlushTask != null) {
+            playerDataFlushTask.stop();
+        }
+        else {
+            for (RSVPlayer player : players) {
+                player.saveData();
+            }
         }
 
         for (RSVModule module : modules) {
@@ -154,6 +168,8 @@ public class RSVPlugin extends JavaPlugin {
                 module.shutdown();
             }
         }
+
+        ConfigWriter.flush();
     }
 
     @Override
@@ -226,4 +242,14 @@ public class RSVPlugin extends JavaPlugin {
         return toolUtils;
     }
 
+    @Nonnull
+    public PlayerDataFlushTask getPlayerDataFlushTask() {
+        return playerDataFlushTask;
+    }
+
+    @Nonnull
+    public SessionLeases getSessionLeases() {
+        return sessionLeases;
+    }
+
 }
\ No newline at end of file
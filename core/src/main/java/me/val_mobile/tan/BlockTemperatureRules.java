@@ -0,0 +1,138 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Levelled;
+import org.bukkit.block.data.Lightable;
+import org.bukkit.configuration.ConfigurationSection;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The Temperature.Environment.Blocks section compiled into a table indexed by material ordinal,
+ * so checking a block is an array read instead of several config lookups
+ */
+public class BlockTemperatureRules {
+
+    private final Rule[] rules = new Rule[Material.values().length];
+
+    public BlockTemperatureRules(@Nullable ConfigurationSection section) {
+        if (section == null) {
+            return;
+        }
+
+        for (String key : section.getKeys(false)) {
+            Material material = Material.getMaterial(key);
+
+            if (material == null) {
+                continue;
+            }
+
+            rules[material.ordinal()] = new Rule(
+                    section.contains(key + ".Value") ? section.getDouble(key + ".Value") : 0D,
+                    section.getBoolean(key + ".IsRegulatory"),
+                    section.contains(key + ".Lit") ? section.getBoolean(key + ".Lit") : null,
+                    section.contains(key + ".MinimumLevel") ? section.getInt(key + ".MinimumLevel") : null,
+                    section.contains(key + ".MaximumLevel") ? section.getInt(key + ".MaximumLevel") : null);
+        }
+    }
+
+    /**
+     * Gets the rule of a block if it currently affects temperature
+     * @param data The block's data
+     * @return The block's rule or null if the block doesn't affect temperature
+     */
+    @Nullable
+    public Rule getRule(@Nullable BlockData data) {
+        if (data == null) {
+            return null;
+        }
+
+        Rule rule = rules[data.getMaterial().ordinal()];
+        return rule != null && rule.affects(data) ? rule : null;
+    }
+
+    public boolean willAffectTemperature(@Nullable BlockData data) {
+        return getRule(data) != null;
+    }
+
+    public boolean isRegulatory(@Nullable BlockData data) {
+        if (data == null) {
+            return false;
+        }
+
+        Rule rule = rules[data.getMaterial().ordinal()];
+        return rule != null && rule.regulatory();
+    }
+
+    public double getValue(@Nullable BlockData data) {
+        if (data == null) {
+            return 0D;
+        }
+
+        Rule rule = rules[data.getMaterial().ordinal()];
+        return rule == null ? 0D : rule.getValue(data);
+    }
+
+    /**
+     * How one block type affects temperature
+     * @param value How much the block changes the temperature
+     * @param regulatory Whether the block regulates the temperature instead of changing it
+     * @param lit The lit state the block must be in or null if it doesn't matter
+     * @param minLevel The lowest level the block must be at or null if it doesn't matter
+     * @param maxLevel The highest level the block must be at or null if it doesn't matter
+     */
+    public record Rule(double value, boolean regulatory, @Nullable Boolean lit, @Nullable Integer minLevel, @Nullable Integer maxLevel) {
+
+        public boolean affects(@Nonnull BlockData data) {
+            if (data instanceof Lightable lightable) {
+                if (lit != null) {
+                    return lit == lightable.isLit();
+                }
+            }
+            else if (data instanceof Levelled levelled) {
+                if (maxLevel != null) {
+                    return levelled.getLevel() <= maxLevel;
+                }
+                else if (minLevel != null) {
+                    return levelled.getLevel() >= minLevel;
+                }
+            }
+            return true;
+        }
+
+        public double getValue(@Nonnull BlockData data) {
+            if (data instanceof Lightable lightable) {
+                if (lit != null && lit) {
+                    return lightable.isLit() ? value : 0D;
+                }
+            }
+            if (data instanceof Levelled levelled) {
+                if (minLevel != null) {
+                    return levelled.getLevel() >= minLevel ? value : 0D;
+                }
+                else if (maxLevel != null) {
+                    return levelled.getLevel() <= maxLevel ? value : 0D;
+                }
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Base of the caches that keep a value per chunk. The values are kept per world and are dropped when their chunk
+ * or world unloads. Must only be used on the main thread
+ * @param <T> The value kept for each chunk
+ */
+public abstract class ChunkCache<T> implements Listener {
+
+    private final Map<UUID, Map<Long, T>> worlds = new HashMap<>();
+
+    /**
+     * Gets the cached value of a chunk
+     * @param world The world
+     * @param chunkX The chunk's x coordinate
+     * @param chunkZ The chunk's z coordinate
+     * @return The chunk's value or null if it isn't cached
+     */
+    @Nullable
+    protected T getChunk(@Nonnull World world, int chunkX, int chunkZ) {
+        Map<Long, T> chunks = worlds.get(world.getUID());
+        return chunks == null ? null : chunks.get(getKey(chunkX, chunkZ));
+    }
+
+    /**
+     * Gets the cached value of a chunk, creating it if it isn't cached yet
+     * @param world The world
+     * @param chunkX The chunk's x coordinate
+     * @param chunkZ The chunk's z coordinate
+     * @param factory Creates the chunk's value
+     * @return The chunk's value
+     */
+    @Nonnull
+    protected T getOrCreateChunk(@Nonnull World world, int chunkX, int chunkZ, @Nonnull Supplier<T> factory) {
+        return worlds.computeIfAbsent(world.getUID(), id -> new HashMap<>())
+                .computeIfAbsent(getKey(chunkX, chunkZ), key -> factory.get());
+    }
+
+    /**
+     * Drops the cached values of every chunk in a rectangle
+     * @param world The world
+     * @param minChunkX The lowest chunk x coordinate
+     * @param minChunkZ The lowest chunk z coordinate
+     * @param maxChunkX The highest chunk x coordinate
+     * @param maxChunkZ The highest chunk z coordinate
+     */
+    protected void removeChunks(@Nonnull World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        Map<Long, T> chunks = worlds.get(world.getUID());
+
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                chunks.remove(getKey(chunkX, chunkZ));
+            }
+        }
+    }
+
+    /**
+     * Drops every cached value, used when the config the values were computed from changed
+     */
+    protected void clearChunks() {
+        worlds.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Map<Long, T> chunks = worlds.get(event.getWorld().getUID());
+
+        if (chunks != null) {
+            chunks.remove(getKey(event.getChunk().getX(), event.getChunk().getZ()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        worlds.remove(event.getWorld().getUID());
+    }
+
+    private static long getKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
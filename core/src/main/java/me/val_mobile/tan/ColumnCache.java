@@ -0,0 +1,120 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the biome temperature and the highest block of the block columns players stand in, since players spend most
+ * of their time in the same few columns. A column is dropped when a block in it changes and a chunk's columns are
+ * dropped when it unloads. Must only be used on the main thread
+ */
+public class ColumnCache extends ChunkCache<ColumnCache.Column[]> {
+
+    private final TanModule module;
+    private TemperatureModel model;
+
+    public ColumnCache(TanModule module) {
+        this.module = module;
+    }
+
+    /**
+     * Gets the biome temperature at a block multiplied by the multiplier of its range
+     * @param world The world
+     * @param x The block's x coordinate
+     * @param y The block's y coordinate
+     * @param z The block's z coordinate
+     * @return The biome's effect on a player's temperature
+     */
+    public double getBiomeTemperature(@Nonnull World world, int x, int y, int z) {
+        TemperatureModel current = module.getTemperatureModel();
+
+        // the cached temperatures were multiplied with the old config
+        if (current != model) {
+            clearChunks();
+            model = current;
+        }
+
+        Column column = getColumn(world, x, z);
+        // the biome temperature drops with height, so it is cached per height
+        Double temp = column.biomeTemps.get(y);
+
+        if (temp == null) {
+            temp = model.getBiomeTemperature(world.getTemperature(x, y, z));
+            column.biomeTemps.put(y, temp);
+        }
+        return temp;
+    }
+
+    /**
+     * Gets the y coordinate of the highest block in a column
+     * @param world The world
+     * @param x The column's x coordinate
+     * @param z The column's z coordinate
+     * @return The highest block's y coordinate
+     */
+    public int getHighestBlockY(@Nonnull World world, int x, int z) {
+        Column column = getColumn(world, x, z);
+
+        if (!column.hasHighestY) {
+            column.highestY = world.getHighestBlockYAt(x, z);
+            column.hasHighestY = true;
+        }
+        return column.highestY;
+    }
+
+    /**
+     * Drops the cached values of the column a block is in
+     * @param block The block that changed
+     */
+    public void invalidate(@Nonnull Block block) {
+        Column[] columns = getChunk(block.getWorld(), block.getX() >> 4, block.getZ() >> 4);
+
+        if (columns != null) {
+            columns[getIndex(block.getX(), block.getZ())] = null;
+        }
+    }
+
+    @Nonnull
+    private Column getColumn(@Nonnull World world, int x, int z) {
+        Column[] columns = getOrCreateChunk(world, x >> 4, z >> 4, () -> new Column[256]);
+
+        int index = getIndex(x, z);
+        Column column = columns[index];
+
+        if (column == null) {
+            column = new Column();
+            columns[index] = column;
+        }
+        return column;
+    }
+
+    private static int getIndex(int x, int z) {
+        return ((z & 15) << 4) | (x & 15);
+    }
+
+    static class Column {
+        private final Map<Integer, Double> biomeTemps = new HashMap<>(4);
+        private int highestY;
+        private boolean hasHighestY = false;
+    }
+}
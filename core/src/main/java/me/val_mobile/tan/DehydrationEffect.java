@@ -0,0 +1,77 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+
+public class DehydrationEffect extends StatusEffect {
+
+    private final boolean enabled;
+    private final double damage;
+    private final double maxThirst;
+    private final double exitThirst;
+    private final boolean damageEnabled;
+    private final boolean potionEffectsEnabled;
+    private final double damageCutoff;
+    private final Collection<PotionEffect> potionEffects;
+
+    public DehydrationEffect(@Nonnull TanModule module) {
+        super(module, StatusEffects.Stat.THIRST, "Thirst.Dehydration");
+        this.enabled = config.getBoolean("Thirst.Dehydration.Enabled");
+        this.maxThirst = config.getDouble("Thirst.Dehydration.Thirst");
+        this.exitThirst = maxThirst + config.getDouble("Thirst.Dehydration.ExitMargin", 0D);
+        this.damage = config.getDouble("Thirst.Dehydration.Damage.Amount");
+        this.damageEnabled = config.getBoolean("Thirst.Dehydration.Damage.Enabled");
+        this.potionEffectsEnabled = config.getBoolean("Thirst.Dehydration.PotionEffects.Enabled");
+        this.damageCutoff = config.getDouble("Thirst.Dehydration.Damage.Cutoff");
+        this.potionEffects = readPotionEffects("Thirst.Dehydration.PotionEffects.Effects");
+    }
+
+    @Override
+    public boolean shouldEnter(@Nonnull Player player, double value) {
+        return enabled && value <= maxThirst && !player.hasPermission("realisticsurvival.toughasnails.resistance.thirst.*");
+    }
+
+    @Override
+    public boolean shouldStay(@Nonnull Player player) {
+        return module.getThirstManager().getThirst(player) < exitThirst;
+    }
+
+    @Override
+    public void act(@Nonnull Player player) {
+        if (!player.hasPermission("realisticsurvival.toughasnails.resistance.thirst.damage")) {
+            if (damageEnabled) {
+                if (player.getHealth() >= damageCutoff) {
+                    if (player.getHealth() - damage <= 0) {
+                        module.getDehydrationDeath().add(player.getUniqueId());
+                    }
+                    player.damage(damage);
+                }
+            }
+        }
+
+        if (!player.hasPermission("realisticsurvival.toughasnails.resistance.thirst.potioneffects")) {
+            if (potionEffectsEnabled) {
+                player.addPotionEffects(potionEffects);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Chunk snapshots taken on the main thread for the environment scans, shared by every scan started in the same tick.
+ * Snapshots are immutable, so the scans can read them off the main thread.
+ * Runs every tick to drop the snapshots of the previous tick
+ */
+public class EnvironmentSnapshots extends BukkitRunnable {
+
+    private final Map<UUID, Map<Long, ChunkSnapshot>> snapshots = new HashMap<>();
+
+    @Override
+    public void run() {
+        if (!snapshots.isEmpty()) {
+            snapshots.clear();
+        }
+    }
+
+    /**
+     * Gets this tick's snapshot of a chunk, must be called on the main thread
+     * @param world The world
+     * @param chunkX The chunk's x coordinate
+     * @param chunkZ The chunk's z coordinate
+     * @return The snapshot or null if the chunk is not loaded
+     */
+    @Nullable
+    public ChunkSnapshot getSnapshot(@Nonnull World world, int chunkX, int chunkZ) {
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+
+        Map<Long, ChunkSnapshot> worldSnapshots = snapshots.computeIfAbsent(world.getUID(), id -> new HashMap<>());
+        long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+
+        ChunkSnapshot snapshot = worldSnapshots.get(key);
+        if (snapshot == null) {
+            Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+            snapshot = chunk.getChunkSnapshot(false, false, false);
+            worldSnapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import me.val_mobile.rsv.RSVPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse per-chunk index of the blocks that affect temperature, so the environment scan only has to look at the
+ * few blocks that matter instead of every block in the cube around the player.
+ * A chunk is indexed the first time a scan needs it and is dropped when it unloads.
+ * The block events that change the environment are applied to the index one tick later, once the world has changed
+ */
+public class HeatSourceIndex extends ChunkCache<HeatSourceIndex.ChunkSources> {
+
+    private final TanModule module;
+    private final RSVPlugin plugin;
+    private final Set<Block> pending = new LinkedHashSet<>();
+    private BlockTemperatureRules rules;
+
+    public HeatSourceIndex(TanModule module, RSVPlugin plugin) {
+        this.module = module;
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gets the index entry of a chunk, must be called on the main thread
+     * @param world The world
+     * @param chunkX The chunk's x coordinate
+     * @param chunkZ The chunk's z coordinate
+     * @return The chunk's heat sources or null if the chunk is not loaded
+     */
+    @Nullable
+    public ChunkSources getSources(@Nonnull World world, int chunkX, int chunkZ) {
+        BlockTemperatureRules current = module.getBlockRules();
+
+        // the indexed values were compiled from the old config
+        if (current != rules) {
+            clearChunks();
+            rules = current;
+        }
+
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+
+        return getOrCreateChunk(world, chunkX, chunkZ, () -> new ChunkSources(world.getMinHeight(), world.getMaxHeight()));
+    }
+
+    /**
+     * Re-reads a block into the index on the next tick, used after a block event that may have changed it
+     * @param block The block
+     */
+    public void update(@Nonnull Block block) {
+        if (pending.isEmpty()) {
+            Bukkit.getScheduler().runTask(plugin, this::applyPending);
+        }
+        pending.add(block);
+    }
+
+    /**
+     * Drops the indexed chunks around a location so they are indexed again the next time a scan needs them, used
+     * when the blocks that changed aren't known
+     * @param loc The location
+     * @param radius The radius in blocks
+     */
+    public void invalidate(@Nonnull Location loc, int radius) {
+        removeChunks(loc.getWorld(), (loc.getBlockX() - radius) >> 4, (loc.getBlockZ() - radius) >> 4, (loc.getBlockX() + radius) >> 4, (loc.getBlockZ() + radius) >> 4);
+    }
+
+    /**
+     * Re-reads the blocks that changed since the last tick
+     */
+    private void applyPending() {
+        for (Block block : pending) {
+            ChunkSources sources = getChunk(block.getWorld(), block.getX() >> 4, block.getZ() >> 4);
+
+            if (sources != null) {
+                sources.set(block.getX(), block.getY(), block.getZ(), block.getBlockData(), rules);
+            }
+        }
+        pending.clear();
+    }
+
+    private static int getKey(int x, int y, int z) {
+        return (y << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    /**
+     * A block that affects temperature
+     * @param x The block's x coordinate
+     * @param y The block's y coordinate
+     * @param z The block's z coordinate
+     * @param value How much the block changes the temperature
+     * @param regulatory Whether the block regulates the temperature instead of changing it
+     */
+    public record HeatSource(int x, int y, int z, double value, boolean regulatory) {}
+
+    /**
+     * The heat sources of one chunk. The index is built off the main thread from a snapshot and is updated on the
+     * main thread afterwards, a build that started before an update is thrown away
+     */
+    public static class ChunkSources {
+
+        private volatile Map<Integer, HeatSource> sources = new ConcurrentHashMap<>();
+        private final int minHeight;
+        private final int maxHeight;
+        private volatile boolean built = false;
+        private int version = 0;
+
+        private ChunkSources(int minHeight, int maxHeight) {
+            this.minHeight = minHeight;
+            this.maxHeight = maxHeight;
+        }
+
+        public boolean isBuilt() {
+            return built;
+        }
+
+        public synchronized int getVersion() {
+            return version;
+        }
+
+        /**
+         * Indexes every temperature-affecting block of a chunk snapshot, can be called off the main thread
+         * @param snapshot The chunk's snapshot
+         * @param version The version the snapshot was taken at
+         * @param rules The compiled temperature blocks
+         * @param rebuild Whether an index that was already built should be replaced, used to correct blocks that
+         *                changed without an event
+         * @return The heat sources of the snapshot
+         */
+        @Nonnull
+        public Collection<HeatSource> build(@Nonnull ChunkSnapshot snapshot, int version, @Nonnull BlockTemperatureRules rules, boolean rebuild) {
+            if (built && !rebuild) {
+                return sources.values();
+            }
+
+            int chunkX = snapshot.getX() << 4;
+            int chunkZ = snapshot.getZ() << 4;
+            List<HeatSource> found = new ArrayList<>();
+
+            for (int sectionY = minHeight; sectionY < maxHeight; sectionY += 16) {
+                if (snapshot.isSectionEmpty((sectionY - minHeight) >> 4)) {
+                    continue;
+                }
+
+                int top = Math.min(sectionY + 16, maxHeight);
+
+                for (int y = sectionY; y < top; y++) {
+                    for (int x = 0; x < 16; x++) {
+                        for (int z = 0; z < 16; z++) {
+                            BlockData data = snapshot.getBlockData(x, y, z);
+                            BlockTemperatureRules.Rule rule = rules.getRule(data);
+
+                            if (rule != null) {
+                                found.add(new HeatSource(chunkX + x, y, chunkZ + z, rule.getValue(data), rule.regulatory()));
+                            }
+                        }
+                    }
+                }
+            }
+
+            synchronized (this) {
+                // the chunk changed after the snapshot was taken, the next scan takes a new one
+                if ((rebuild || !built) && this.version == version) {
+                    Map<Integer, HeatSource> rebuilt = new ConcurrentHashMap<>();
+
+                    for (HeatSource source : found) {
+                        rebuilt.put(getKey(source.x(), source.y(), source.z()), source);
+                    }
+                    // swapped so scans that are summing the old index never see a half built one
+                    sources = rebuilt;
+                    built = true;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Replaces the indexed block at a position, must be called on the main thread
+         */
+        private synchronized void set(int x, int y, int z, @Nonnull BlockData data, @Nonnull BlockTemperatureRules rules) {
+            version++;
+
+            if (!built) {
+                return;
+            }
+
+            int key = getKey(x, y, z);
+
+            BlockTemperatureRules.Rule rule = rules.getRule(data);
+
+            if (rule != null) {
+                sources.put(key, new HeatSource(x, y, z, rule.getValue(data), rule.regulatory()));
+            }
+            else {
+                sources.remove(key);
+            }
+        }
+
+        @Nonnull
+        public Collection<HeatSource> getSources() {
+            return sources.values();
+        }
+    }
+}
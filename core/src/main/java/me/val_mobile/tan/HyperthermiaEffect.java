@@ -0,0 +1,106 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import me.val_mobile.integrations.CompatiblePlugin;
+import me.val_mobile.integrations.RealisticSeasons;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+
+public class HyperthermiaEffect extends StatusEffect {
+
+    private final RealisticSeasons rs;
+    private final boolean enabled;
+    private final boolean damageEnabled;
+    private final boolean damageImmunityEnabled;
+    private final double damageCutoff;
+    private final double damage;
+    private final boolean potionEffectsEnabled;
+    private final boolean potionImmunityEnabled;
+    private final boolean igniteEnabled;
+    private final int igniteTicks;
+    private final boolean igniteImmunityEnabled;
+    private final double minTemperature;
+    private final double exitTemperature;
+    private final Collection<PotionEffect> potionEffects;
+
+    public HyperthermiaEffect(@Nonnull TanModule module) {
+        super(module, StatusEffects.Stat.TEMPERATURE, "Temperature.Hyperthermia");
+        this.rs = (RealisticSeasons) CompatiblePlugin.getPlugin(RealisticSeasons.NAME);
+        this.enabled = config.getBoolean("Temperature.Hyperthermia.Enabled");
+        this.damageEnabled = config.getBoolean("Temperature.Hyperthermia.Damage.Enabled");
+        this.damageImmunityEnabled = config.getBoolean("Temperature.Hyperthermia.Damage.FireResistanceImmunity");
+        this.damage = config.getDouble("Temperature.Hyperthermia.Damage.Amount");
+        this.damageCutoff = config.getDouble("Temperature.Hyperthermia.Damage.Cutoff");
+        this.potionEffectsEnabled = config.getBoolean("Temperature.Hyperthermia.PotionEffects.Enabled");
+        this.potionImmunityEnabled = config.getBoolean("Temperature.Hyperthermia.PotionEffects.FireResistanceImmunity");
+        this.igniteEnabled = config.getBoolean("Temperature.Hyperthermia.Ignite.Enabled");
+        this.igniteTicks = config.getInt("Temperature.Hyperthermia.Ignite.FireTicks");
+        this.igniteImmunityEnabled = config.getBoolean("Temperature.Hyperthermia.Ignite.FireResistanceImmunity");
+        this.minTemperature = config.getDouble("Temperature.Hyperthermia.Temperature");
+        this.exitTemperature = minTemperature - config.getDouble("Temperature.Hyperthermia.ExitMargin", 0D);
+        this.potionEffects = readPotionEffects("Temperature.Hyperthermia.PotionEffects.Effects");
+    }
+
+    @Override
+    public boolean shouldEnter(@Nonnull Player player, double value) {
+        return enabled && value >= minTemperature && !rs.disableHyperthermiaCompletely() && !player.hasPermission("realisticsurvival.toughasnails.resistance.hot.*");
+    }
+
+    @Override
+    public boolean shouldStay(@Nonnull Player player) {
+        return module.getTempManager().getTemperature(player) > exitTemperature;
+    }
+
+    @Override
+    public void act(@Nonnull Player player) {
+        if (!player.hasPermission("realisticsurvival.toughasnails.resistance.hot.damage")) {
+            if (damageEnabled && !rs.disableHyperthermiaDamage()) {
+                if (player.getHealth() >= damageCutoff) {
+                    if (!(damageImmunityEnabled && player.hasPotionEffect(PotionEffectType.FIRE_RESISTANCE))) {
+                        if (player.getHealth() - damage <= 0) {
+                            module.getHyperthermiaDeath().add(player.getUniqueId());
+                        }
+                        player.damage(damage);
+                    }
+                }
+            }
+        }
+
+        if (!player.hasPermission("realisticsurvival.toughasnails.resistance.hot.potioneffects")) {
+            if (potionEffectsEnabled && !rs.disableHyperthermiaPotions()) {
+                if (!(potionImmunityEnabled && player.hasPotionEffect(PotionEffectType.FIRE_RESISTANCE))) {
+                    player.addPotionEffects(potionEffects);
+                }
+            }
+        }
+
+        if (!player.hasPermission("realisticsurvival.toughasnails.resistance.hot.combustion")) {
+            if (igniteEnabled && !rs.disableHyperthermiaIgnite()) {
+                if (player.getFireTicks() < igniteTicks) {
+                    if (!(igniteImmunityEnabled && player.hasPotionEffect(PotionEffectType.FIRE_RESISTANCE))) {
+                        player.setFireTicks(igniteTicks);
+                    }
+                }
+            }
+        }
+    }
+}
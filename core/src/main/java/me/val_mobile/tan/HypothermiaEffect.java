@@ -0,0 +1,82 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import me.val_mobile.integrations.CompatiblePlugin;
+import me.val_mobile.integrations.RealisticSeasons;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+
+public class HypothermiaEffect extends StatusEffect {
+
+    private final RealisticSeasons rs;
+    private final boolean enabled;
+    private final boolean damageEnabled;
+    private final double damageCutoff;
+    private final double damage;
+    private final boolean potionEffectsEnabled;
+    private final double maxTemperature;
+    private final double exitTemperature;
+    private final Collection<PotionEffect> potionEffects;
+
+    public HypothermiaEffect(@Nonnull TanModule module) {
+        super(module, StatusEffects.Stat.TEMPERATURE, "Temperature.Hypothermia");
+        this.rs = (RealisticSeasons) CompatiblePlugin.getPlugin(RealisticSeasons.NAME);
+        this.enabled = config.getBoolean("Temperature.Hypothermia.Enabled");
+        this.damageEnabled = config.getBoolean("Temperature.Hypothermia.Damage.Enabled");
+        this.damageCutoff = config.getDouble("Temperature.Hypothermia.Damage.Cutoff");
+        this.damage = config.getDouble("Temperature.Hypothermia.Damage.Amount");
+        this.potionEffectsEnabled = config.getBoolean("Temperature.Hypothermia.PotionEffects.Enabled");
+        this.maxTemperature = config.getDouble("Temperature.Hypothermia.Temperature");
+        this.exitTemperature = maxTemperature + config.getDouble("Temperature.Hypothermia.ExitMargin", 0D);
+        this.potionEffects = readPotionEffects("Temperature.Hypothermia.PotionEffects.Effects");
+    }
+
+    @Override
+    public boolean shouldEnter(@Nonnull Player player, double value) {
+        return enabled && value <= maxTemperature && !rs.disableHypothermiaCompletely() && !player.hasPermission("realisticsurvival.toughasnails.resistance.cold.*");
+    }
+
+    @Override
+    public boolean shouldStay(@Nonnull Player player) {
+        return module.getTempManager().getTemperature(player) < exitTemperature;
+    }
+
+    @Override
+    public void act(@Nonnull Player player) {
+        if (!player.hasPermission("realisticsurvival.toughasnails.resistance.cold.damage")) {
+            if (damageEnabled && !rs.disableHypothermiaDamage()) {
+                if (player.getHealth() >= damageCutoff) {
+                    if (player.getHealth() - damage <= 0) {
+                        module.getHypothermiaDeath().add(player.getUniqueId());
+                    }
+
+                    player.damage(damage);
+                }
+            }
+        }
+
+        if (!player.hasPermission("realisticsurvival.toughasnails.resistance.cold.potioneffects")) {
+            if (potionEffectsEnabled && !rs.disableHypothermiaPotions()) {
+                player.addPotionEffects(potionEffects);
+            }
+        }
+    }
+}
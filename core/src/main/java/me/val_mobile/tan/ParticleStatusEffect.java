@@ -0,0 +1,135 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import me.val_mobile.integrations.CompatiblePlugin;
+import me.val_mobile.integrations.RealisticSeasons;
+import me.val_mobile.utils.Utils;
+import org.bukkit.Color;
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Cold breath and sweating, which only show particles in front of the player's face
+ */
+public class ParticleStatusEffect extends StatusEffect {
+
+    private final RealisticSeasons rs;
+    private final boolean cold;
+    private final String permission;
+    private final boolean enabled;
+    private final double chance;
+    private final double enterTemperature;
+    private final double exitTemperature;
+
+    private final int minCount;
+    private final int maxCount;
+    private final double xOffset;
+    private final double yOffset;
+    private final double zOffset;
+    private final double extra;
+
+    private final Particle particle;
+    private Particle.DustOptions dust;
+
+    private ParticleStatusEffect(@Nonnull TanModule module, @Nonnull String path, boolean cold) {
+        super(module, StatusEffects.Stat.TEMPERATURE, path);
+        this.rs = (RealisticSeasons) CompatiblePlugin.getPlugin(RealisticSeasons.NAME);
+        this.cold = cold;
+        this.permission = cold ? "realisticsurvival.toughasnails.resistance.cold.breath" : "realisticsurvival.toughasnails.resistance.hot.sweat";
+        this.enabled = config.getBoolean(path + ".Enabled");
+        this.chance = config.getDouble(path + ".Chance");
+
+        double margin = config.getDouble(path + ".ExitMargin", 0D);
+        if (cold) {
+            this.enterTemperature = config.getDouble(path + ".MaximumTemperature");
+            this.exitTemperature = enterTemperature + margin;
+        }
+        else {
+            this.enterTemperature = config.getDouble(path + ".MinimumTemperature");
+            this.exitTemperature = enterTemperature - margin;
+        }
+
+        this.minCount = config.getInt(path + ".MinCount");
+        this.maxCount = config.getInt(path + ".MaxCount");
+        this.xOffset = config.getDouble(path + ".x-Offset");
+        this.yOffset = config.getDouble(path + ".y-Offset");
+        this.zOffset = config.getDouble(path + ".z-Offset");
+        this.extra = config.getDouble(path + ".Extra");
+        this.particle = Particle.valueOf(config.getString(path + ".Particle"));
+
+        if (particle == Particle.REDSTONE) {
+            String color = config.getString(path + ".DustOptionColor");
+            float size = (float) config.getDouble(path + ".DustOptionSize");
+
+            if (color.contains("|")) {
+                int first = color.indexOf("|");
+                int second = color.lastIndexOf("|");
+
+                int red = Integer.parseInt(color.substring(0, first));
+                int green = Integer.parseInt(color.substring(first + 1, second));
+                int blue = Integer.parseInt(color.substring(second + 1));
+
+                dust = new Particle.DustOptions(Color.fromRGB(red, green, blue), size);
+            }
+            else {
+                dust = new Particle.DustOptions(Utils.valueOfColor(color), size);
+            }
+        }
+    }
+
+    @Nonnull
+    public static ParticleStatusEffect coldBreath(@Nonnull TanModule module) {
+        return new ParticleStatusEffect(module, "Temperature.ColdBreath", true);
+    }
+
+    @Nonnull
+    public static ParticleStatusEffect sweating(@Nonnull TanModule module) {
+        return new ParticleStatusEffect(module, "Temperature.Sweating", false);
+    }
+
+    @Override
+    public boolean shouldEnter(@Nonnull Player player, double value) {
+        if (!enabled || player.hasPermission(permission)) {
+            return false;
+        }
+
+        if (cold) {
+            return value <= enterTemperature && !rs.disableColdBreath() && !player.hasPermission("realisticsurvival.toughasnails.resistance.cold.*");
+        }
+        return value >= enterTemperature && !rs.disableSweating() && !player.hasPermission("realisticsurvival.toughasnails.resistance.hot.*");
+    }
+
+    @Override
+    public boolean shouldStay(@Nonnull Player player) {
+        double temp = module.getTempManager().getTemperature(player);
+        return cold ? temp < exitTemperature : temp > exitTemperature;
+    }
+
+    @Override
+    public void act(@Nonnull Player player) {
+        if (!player.hasPermission(permission)) {
+            if (Utils.roll(chance)) {
+                Vector dir = player.getLocation().clone().subtract(0, 0.5D, 0).getDirection().normalize().multiply(0.5D);
+                player.spawnParticle(particle, player.getEyeLocation().add(dir), Utils.getRandomNum(minCount, maxCount), xOffset, yOffset, zOffset, extra, dust);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Called once per tick with every player whose temperature or thirst changed during it,
+ * used instead of the per-player events when ChangeEvents.Policy is BATCHED
+ */
+public class StatChangeBatchEvent extends Event {
+
+    private static final HandlerList handlers = new HandlerList();
+    private final Map<UUID, Change> temperatureChanges;
+    private final Map<UUID, Change> thirstChanges;
+
+    public StatChangeBatchEvent(@Nonnull Map<UUID, Change> temperatureChanges, @Nonnull Map<UUID, Change> thirstChanges) {
+        this.temperatureChanges = Collections.unmodifiableMap(temperatureChanges);
+        this.thirstChanges = Collections.unmodifiableMap(thirstChanges);
+    }
+
+    @Nonnull
+    public Map<UUID, Change> getTemperatureChanges() {
+        return temperatureChanges;
+    }
+
+    @Nonnull
+    public Map<UUID, Change> getThirstChanges() {
+        return thirstChanges;
+    }
+
+    @Nonnull
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+
+    /**
+     * How a stat changed during the tick
+     * @param oldValue The value at the start of the tick
+     * @param newValue The value at the end of the tick
+     */
+    public record Change(double oldValue, double newValue) {}
+}
@@ -0,0 +1,166 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import me.val_mobile.rsv.RSVPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decides when temperature and thirst changes are passed on to listeners
+ */
+public class StatChangeDispatcher {
+
+    private final RSVPlugin plugin;
+    private final Policy policy;
+    private final double temperatureThreshold;
+    private final double thirstThreshold;
+    private final double hysteresis;
+    private final Map<UUID, Double> lastTemperatures = new HashMap<>();
+    private final Map<UUID, Double> lastThirsts = new HashMap<>();
+    private final Map<UUID, StatChangeBatchEvent.Change> temperatureBatch = new LinkedHashMap<>();
+    private final Map<UUID, StatChangeBatchEvent.Change> thirstBatch = new LinkedHashMap<>();
+
+    public StatChangeDispatcher(TanModule module, RSVPlugin plugin) {
+        FileConfiguration config = module.getUserConfig().getConfig();
+
+        this.plugin = plugin;
+        this.policy = Policy.of(config.getString("ChangeEvents.Policy", "IMMEDIATE"));
+        this.temperatureThreshold = config.getDouble("ChangeEvents.TemperatureThreshold", 1D);
+        this.thirstThreshold = config.getDouble("ChangeEvents.ThirstThreshold", 1D);
+        this.hysteresis = Math.max(0D, Math.min(0.5D, config.getDouble("ChangeEvents.Hysteresis", 0.1D)));
+    }
+
+    /**
+     * Passes a temperature change on according to the policy, must be called on the main thread
+     * @param player The player
+     * @param oldTemp The temperature before the change
+     * @param newTemp The temperature after the change
+     */
+    public void temperatureChanged(@Nonnull Player player, double oldTemp, double newTemp) {
+        switch (policy) {
+            case IMMEDIATE -> Bukkit.getServer().getPluginManager().callEvent(new TemperatureChangeEvent(player, oldTemp, newTemp));
+            case THRESHOLD -> {
+                // the old value is the last one listeners were told about, so small steps add up
+                double last = lastTemperatures.computeIfAbsent(player.getUniqueId(), id -> oldTemp);
+
+                if (exceeds(last, newTemp, temperatureThreshold)) {
+                    lastTemperatures.put(player.getUniqueId(), newTemp);
+                    Bukkit.getServer().getPluginManager().callEvent(new TemperatureChangeEvent(player, last, newTemp));
+                }
+            }
+            case BATCHED -> batch(temperatureBatch, player.getUniqueId(), oldTemp, newTemp);
+        }
+    }
+
+    /**
+     * Passes a thirst change on according to the policy, must be called on the main thread
+     * @param player The player
+     * @param oldThirst The thirst before the change
+     * @param newThirst The thirst after the change
+     */
+    public void thirstChanged(@Nonnull Player player, double oldThirst, double newThirst) {
+        switch (policy) {
+            case IMMEDIATE -> Bukkit.getServer().getPluginManager().callEvent(new ThirstChangeEvent(player, oldThirst, newThirst));
+            case THRESHOLD -> {
+                double last = lastThirsts.computeIfAbsent(player.getUniqueId(), id -> oldThirst);
+
+                if (exceeds(last, newThirst, thirstThreshold)) {
+                    lastThirsts.put(player.getUniqueId(), newThirst);
+                    Bukkit.getServer().getPluginManager().callEvent(new ThirstChangeEvent(player, last, newThirst));
+                }
+            }
+            case BATCHED -> batch(thirstBatch, player.getUniqueId(), oldThirst, newThirst);
+        }
+    }
+
+    /**
+     * Forgets what listeners were told about a player, used when the player's task stops
+     * @param id The player's UUID
+     */
+    public void forget(@Nonnull UUID id) {
+        lastTemperatures.remove(id);
+        lastThirsts.remove(id);
+    }
+
+    /**
+     * Checks if a value moved far enough from the last value listeners were told about. Values are compared in the
+     * rounded units the hud shows, and the value has to be past the rounding boundary by the hysteresis, so a value
+     * hovering around x.5 doesn't call an event every time it crosses it
+     * @param last The last value listeners were told about
+     * @param value The new value
+     * @param threshold How many units the value has to move
+     * @return True if the change should be passed on
+     */
+    private boolean exceeds(double last, double value, double threshold) {
+        long lastUnit = Math.round(last);
+        return Math.abs(Math.round(value) - lastUnit) >= threshold && Math.abs(value - lastUnit) >= threshold - 0.5 + hysteresis;
+    }
+
+    private void batch(@Nonnull Map<UUID, StatChangeBatchEvent.Change> batch, @Nonnull UUID id, double oldValue, double newValue) {
+        if (temperatureBatch.isEmpty() && thirstBatch.isEmpty()) {
+            Bukkit.getScheduler().runTask(plugin, this::flush);
+        }
+
+        // a player who changed more than once in the tick keeps the value from the start of the tick
+        StatChangeBatchEvent.Change previous = batch.get(id);
+        batch.put(id, new StatChangeBatchEvent.Change(previous == null ? oldValue : previous.oldValue(), newValue));
+    }
+
+    private void flush() {
+        if (temperatureBatch.isEmpty() && thirstBatch.isEmpty()) {
+            return;
+        }
+
+        StatChangeBatchEvent event = new StatChangeBatchEvent(new LinkedHashMap<>(temperatureBatch), new LinkedHashMap<>(thirstBatch));
+        temperatureBatch.clear();
+        thirstBatch.clear();
+        Bukkit.getServer().getPluginManager().callEvent(event);
+    }
+
+    public enum Policy {
+        /**
+         * Every change calls its event right away
+         */
+        IMMEDIATE,
+        /**
+         * A change calls its event once the rounded value moved far enough from the last value that was passed on
+         */
+        THRESHOLD,
+        /**
+         * The changes of a tick are passed on together in one StatChangeBatchEvent on the next tick
+         */
+        BATCHED;
+
+        @Nonnull
+        private static Policy of(@Nonnull String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            }
+            catch (IllegalArgumentException e) {
+                return IMMEDIATE;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A state a player enters when one of their stats crosses a threshold, which acts on the player every tick period
+ * until the stat crosses back past the exit threshold
+ */
+public abstract class StatusEffect {
+
+    protected final TanModule module;
+    protected final FileConfiguration config;
+    private final StatusEffects.Stat stat;
+    private final int tickPeriod;
+
+    protected StatusEffect(@Nonnull TanModule module, @Nonnull StatusEffects.Stat stat, @Nonnull String path) {
+        this.module = module;
+        this.config = module.getUserConfig().getConfig();
+        this.stat = stat;
+        this.tickPeriod = Math.max(1, config.getInt(path + ".TickPeriod"));
+    }
+
+    /**
+     * Checks whether a player who isn't in this state should enter it, called on the stat's calculation tick
+     * @param player The player
+     * @param value The stat's new value
+     * @return True if the player should enter the state
+     */
+    public abstract boolean shouldEnter(@Nonnull Player player, double value);
+
+    /**
+     * Checks whether a player in this state should stay in it, called before every action
+     * @param player The player
+     * @return True if the player should stay in the state
+     */
+    public abstract boolean shouldStay(@Nonnull Player player);
+
+    /**
+     * Damages the player, gives them potion effects or shows particles
+     * @param player The player
+     */
+    public abstract void act(@Nonnull Player player);
+
+    @Nonnull
+    public StatusEffects.Stat getStat() {
+        return stat;
+    }
+
+    public int getTickPeriod() {
+        return tickPeriod;
+    }
+
+    @Nonnull
+    protected Collection<PotionEffect> readPotionEffects(@Nonnull String path) {
+        Collection<PotionEffect> potionEffects = new ArrayList<>();
+        ConfigurationSection section = config.getConfigurationSection(path);
+
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                int dur = section.getInt(key + ".Duration");
+                int amp = section.getInt(key + ".Amplifier");
+                potionEffects.add(new PotionEffect(PotionEffectType.getByName(key), dur, amp));
+            }
+        }
+        return potionEffects;
+    }
+}
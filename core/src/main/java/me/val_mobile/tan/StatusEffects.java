@@ -0,0 +1,164 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tracks which status effects every player is in and runs all of their actions from a single timer instead of a
+ * separate task per player and effect
+ */
+public class StatusEffects extends BukkitRunnable {
+
+    public enum Stat {
+        TEMPERATURE,
+        THIRST
+    }
+
+    private static final long INACTIVE = -1L;
+
+    private final TanModule module;
+    // the tick each effect should act next, or INACTIVE if the player isn't in that state
+    private final Map<UUID, long[]> states = new HashMap<>();
+    private StatusEffect[] effects;
+    private FileConfiguration effectsConfig;
+    private long tick;
+
+    public StatusEffects(@Nonnull TanModule module) {
+        this.module = module;
+    }
+
+    /**
+     * Enters every state the player's new stat value qualifies for
+     * @param player The player
+     * @param stat The stat that was calculated
+     * @param value The stat's new value
+     */
+    public void update(@Nonnull Player player, @Nonnull Stat stat, double value) {
+        StatusEffect[] effects = getEffects();
+        long[] next = states.get(player.getUniqueId());
+
+        for (int i = 0; i < effects.length; i++) {
+            StatusEffect effect = effects[i];
+
+            if (effect.getStat() == stat && (next == null || next[i] == INACTIVE) && effect.shouldEnter(player, value)) {
+                if (next == null) {
+                    next = new long[effects.length];
+                    Arrays.fill(next, INACTIVE);
+                    states.put(player.getUniqueId(), next);
+                }
+                next[i] = tick + 1;
+            }
+        }
+    }
+
+    /**
+     * Leaves every state, used when the player dies
+     * @param id The player's uuid
+     */
+    public void clear(@Nonnull UUID id) {
+        long[] next = states.get(id);
+
+        // the entry itself is dropped by the loop, this may be called while it is running
+        if (next != null) {
+            Arrays.fill(next, INACTIVE);
+        }
+    }
+
+    public boolean isActive(@Nonnull UUID id) {
+        return states.containsKey(id);
+    }
+
+    @Override
+    public void run() {
+        tick++;
+
+        if (states.isEmpty()) {
+            return;
+        }
+
+        StatusEffect[] effects = getEffects();
+        Iterator<Map.Entry<UUID, long[]>> iterator = states.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, long[]> entry = iterator.next();
+            long[] next = entry.getValue();
+            Player player = Bukkit.getPlayer(entry.getKey());
+
+            if (!isEligible(player)) {
+                iterator.remove();
+                continue;
+            }
+
+            for (int i = 0; i < effects.length; i++) {
+                if (next[i] != INACTIVE && next[i] <= tick) {
+                    StatusEffect effect = effects[i];
+
+                    if (effect.shouldStay(player)) {
+                        // rescheduled first since the action may kill the player, which clears every state
+                        next[i] = tick + effect.getTickPeriod();
+                        effect.act(player);
+                    }
+                    else {
+                        next[i] = INACTIVE;
+                    }
+                }
+            }
+
+            if (Arrays.stream(next).allMatch(value -> value == INACTIVE)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean isEligible(Player player) {
+        if (player == null || !player.isOnline() || player.isDead()) {
+            return false;
+        }
+
+        GameMode mode = player.getGameMode();
+        return (mode == GameMode.SURVIVAL || mode == GameMode.ADVENTURE) && module.getAllowedWorlds().contains(player.getWorld().getName());
+    }
+
+    @Nonnull
+    private StatusEffect[] getEffects() {
+        FileConfiguration config = module.getUserConfig().getConfig();
+
+        if (config != effectsConfig) {
+            effects = new StatusEffect[] {
+                    new HypothermiaEffect(module),
+                    ParticleStatusEffect.coldBreath(module),
+                    new HyperthermiaEffect(module),
+                    ParticleStatusEffect.sweating(module),
+                    new DehydrationEffect(module)
+            };
+            effectsConfig = config;
+        }
+        return effects;
+    }
+}
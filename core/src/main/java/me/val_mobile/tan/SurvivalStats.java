@@ -0,0 +1,119 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Publishes an immutable copy of every online player's temperature and thirst once per tick, so other plugins can
+ * read them from any thread. Readers always see the values of a single tick and never touch the task maps
+ */
+public class SurvivalStats extends BukkitRunnable {
+
+    private final TanModule module;
+    private volatile Map<UUID, Snapshot> snapshots = Map.of();
+
+    public SurvivalStats(@Nonnull TanModule module) {
+        this.module = module;
+    }
+
+    /**
+     * A player's stats at the end of a tick
+     * @param id The player's uuid
+     * @param enabled If the module is enabled in the player's world
+     * @param temperatureEnabled If temperature is enabled for the player
+     * @param temperature The player's temperature
+     * @param thirstEnabled If thirst is enabled for the player
+     * @param thirst The player's thirst
+     * @param saturation The player's thirst saturation
+     * @param exhaustion The player's thirst exhaustion
+     * @param parasites If the player has parasites
+     * @param underwater If the player is in water or out of breath
+     */
+    public record Snapshot(@Nonnull UUID id, boolean enabled, boolean temperatureEnabled, double temperature, boolean thirstEnabled, int thirst, int saturation, double exhaustion, boolean parasites, boolean underwater) {}
+
+    @Override
+    public void run() {
+        TempManager tempManager = module.getTempManager();
+        ThirstManager thirstManager = module.getThirstManager();
+        Map<UUID, Snapshot> previous = snapshots;
+        Map<UUID, Snapshot> next = new HashMap<>();
+        boolean changed = false;
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            boolean temperatureEnabled = tempManager.isTempEnabled(player);
+            boolean thirstEnabled = thirstManager.isThirstEnabled(player);
+
+            if (!temperatureEnabled && !thirstEnabled) {
+                continue;
+            }
+
+            UUID id = player.getUniqueId();
+            Snapshot snapshot = new Snapshot(id,
+                    module.isEnabled(player),
+                    temperatureEnabled,
+                    tempManager.getTemperature(player),
+                    thirstEnabled,
+                    thirstManager.getThirst(player),
+                    thirstManager.getSaturation(player),
+                    thirstManager.getExhaustion(player),
+                    thirstManager.hasParasites(player),
+                    player.getRemainingAir() < 300 || player.isInWater());
+            Snapshot old = previous.get(id);
+
+            // most players' stats don't change every tick, so the old copy is kept
+            if (snapshot.equals(old)) {
+                snapshot = old;
+            }
+            else {
+                changed = true;
+            }
+            next.put(id, snapshot);
+        }
+
+        if (changed || next.size() != previous.size()) {
+            snapshots = Map.copyOf(next);
+        }
+    }
+
+    /**
+     * Gets the published stats of every online player with temperature or thirst enabled. Safe to call from any thread
+     * @return An immutable map of the players' uuids to their stats
+     */
+    @Nonnull
+    public Map<UUID, Snapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Gets a player's published stats. Safe to call from any thread
+     * @param id The player's uuid
+     * @return The player's stats or null if they are offline or neither stat is enabled for them
+     */
+    @Nullable
+    public Snapshot getSnapshot(@Nonnull UUID id) {
+        return snapshots.get(id);
+    }
+}
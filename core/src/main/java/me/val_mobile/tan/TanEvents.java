@@ -28,11 +28,11 @@ import me.val_mobile.utils.PlayerJumpEvent;
 import me.val_mobile.utils.RSVItem;
 import me.val_mobile.utils.Utils;
 import org.bukkit.*;
-import org.bukkit.block.Biome;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.block.data.Lightable;
-import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.block.data.Waterlogged;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Arrow;
 import org.bukkit.entity.Entity;
@@ -42,8 +42,14 @@ import org.bukkit.event.*;
 import org.bukkit.event.block.*;
 import org.bukkit.event.entity.*;
 import org.bukkit.event.inventory.FurnaceBurnEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.inventory.PrepareItemCraftEvent;
 import org.bukkit.event.player.*;
+import org.bukkit.event.weather.ThunderChangeEvent;
+import org.bukkit.event.weather.WeatherChangeEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.TimeSkipEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
@@ -53,6 +59,8 @@ import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.potion.PotionType;
 import org.bukkit.util.RayTraceResult;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 
 public class TanEvents extends ModuleEvents implements Listener {
@@ -64,7 +72,13 @@ public class TanEvents extends ModuleEvents implements Listener {
     private final boolean thirstEnabled;
     private final TempManager tempManager;
     private final ThirstManager thirstManager;
-
+    private final HeatSourceIndex heatSources;
+    private final ColumnCache columns;
+    private final WaterSourceCache waterSources;
+    private final double jumpingExhaustion;
+    private final double sprintJumpingExhaustion;
+    private final double regeneratingExhaustion;
+    private final double breakingExhaustion;
 
     public TanEvents(TanModule module, RSVPlugin plugin) {
         super(module, plugin);
@@ -75,6 +89,13 @@ public class TanEvents extends ModuleEvents implements Listener {
         this.thirstEnabled = module.isThirstGloballyEnabled();
         this.tempManager = module.getTempManager();
         this.thirstManager = module.getThirstManager();
+        this.heatSources = module.getHeatSourceIndex();
+        this.columns = module.getColumnCache();
+        this.waterSources = module.getWaterSourceCache();
+        this.jumpingExhaustion = config.getDouble("Thirst.ExhaustionLevelIncrease.Jumping");
+        this.sprintJumpingExhaustion = config.getDouble("Thirst.ExhaustionLevelIncrease.JumpingWhileSprinting");
+        this.regeneratingExhaustion = config.getDouble("Thirst.ExhaustionLevelIncrease.RegeneratingHealth");
+        this.breakingExhaustion = config.getDouble("Thirst.ExhaustionLevelIncrease.BreakingBlock");
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
@@ -107,15 +128,15 @@ public class TanEvents extends ModuleEvents implements Listener {
     public void onPlayerJump(PlayerJumpEvent event) {
         Player player = event.getPlayer();
 
-        if (!(shouldEventBeRan(player) && thirstManager.isThirstEnabled(player)))
+        if (!(thirstEnabled && shouldEventBeRan(player)))
             return;
 
         // player is sprinting and jumping
         if (player.isSprinting())
-            thirstManager.addExhaustion(player, config.getDouble("Thirst.ExhaustionLevelIncrease.JumpingWhileSprinting"));
+            thirstManager.accumulateExhaustion(player, sprintJumpingExhaustion);
         // player is only jumping
         else
-            thirstManager.addExhaustion(player, config.getDouble("Thirst.ExhaustionLevelIncrease.Jumping"));
+            thirstManager.accumulateExhaustion(player, jumpingExhaustion);
     }
 
     @EventHandler
@@ -177,20 +198,9 @@ public class TanEvents extends ModuleEvents implements Listener {
             }
         }
 
-        if (HypothermiaTask.hasTask(id)) {
-            HypothermiaTask.getTasks().get(id).cancel();
-            HypothermiaTask.getTasks().remove(id);
-        }
-
-        if (HyperthermiaTask.hasTask(id)) {
-            HyperthermiaTask.getTasks().get(id).cancel();
-            HyperthermiaTask.getTasks().remove(id);
-        }
-
-        if (DehydrationTask.hasTask(id)) {
-            DehydrationTask.getTasks().get(id).cancel();
-            DehydrationTask.getTasks().remove(id);
-        }
+        module.getStatusEffects().clear(id);
+        // the status effects have to be entered again even if the temperature stays the same
+        TemperatureCalculateTask.wake(id);
 
         if (ParasiteTask.hasTask(id)) {
             ParasiteTask.getTasks().get(id).cancel();
@@ -276,62 +286,11 @@ public class TanEvents extends ModuleEvents implements Listener {
 
                             // Parasites code
 
-                            Location waterSourceLoc = block.getLocation();
-                            World world = waterSourceLoc.getWorld();
-                            Block air;
-
-                            int airAmount = 0;
-                            int caveAirAmount = 0;
-
-                            for (int x = -3; x < 2; x++) {
-                                for (int y = -3; y < 2; y++) {
-                                    for (int z = -3; z < 2; z++) {
-                                        air = world.getBlockAt(x + (int) waterSourceLoc.getX(), y + (int) waterSourceLoc.getY(), z + (int) waterSourceLoc.getZ());
-                                        if (air.getType() == Material.AIR) {
-                                            airAmount++;
-                                        }
-                                        else if (air.getType() == Material.CAVE_AIR) {
-                                            caveAirAmount++;
-                                        }
-                                    }
-                                }
-                            }
+                            String source = waterSources.getSource(block).getConfigName();
 
-                            if (caveAirAmount > airAmount) {
-                                // cave water
-                                if (config.getBoolean("Thirst.Parasites.CaveWater.Enabled")) {
-                                    if (Utils.roll(config.getDouble("Thirst.Parasites.CaveWater.Chance"))) {
-                                        parasites = true;
-                                    }
-                                }
-                            }
-                            else {
-                                Biome biome = block.getBiome();
-                                switch (biome) {
-                                    case RIVER, FROZEN_RIVER -> {
-                                        // river water
-                                        if (config.getBoolean("Thirst.Parasites.RiverWater.Enabled")) {
-                                            if (Utils.roll(config.getDouble("Thirst.Parasites.RiverWater.Chance"))) {
-                                                parasites = true;
-                                            }
-                                        }
-                                    }
-                                    case OCEAN, COLD_OCEAN, DEEP_LUKEWARM_OCEAN, LUKEWARM_OCEAN, DEEP_OCEAN, DEEP_COLD_OCEAN, DEEP_FROZEN_OCEAN, FROZEN_OCEAN, DEEP_WARM_OCEAN, WARM_OCEAN -> {
-                                        // ocean water
-                                        if (config.getBoolean("Thirst.Parasites.SeaWater.Enabled")) {
-                                            if (Utils.roll(config.getDouble("Thirst.Parasites.SeaWater.Chance"))) {
-                                                parasites = true;
-                                            }
-                                        }
-                                    }
-                                    default -> {
-                                        // regular water
-                                        if (config.getBoolean("Thirst.Parasites.RegularWater.Enabled")) {
-                                            if (Utils.roll(config.getDouble("Thirst.Parasites.RegularWater.Chance"))) {
-                                                parasites = true;
-                                            }
-                                        }
-                                    }
+                            if (config.getBoolean("Thirst.Parasites." + source + ".Enabled")) {
+                                if (Utils.roll(config.getDouble("Thirst.Parasites." + source + ".Chance"))) {
+                                    parasites = true;
                                 }
                             }
                         }
@@ -420,7 +379,8 @@ public class TanEvents extends ModuleEvents implements Listener {
         ItemStack item = event.getItem();
 
         if (Utils.isItemReal(item) && (item.getType() == Material.WATER_BUCKET || item.getType().toString().contains("SHOVEL") || item.getType() == Material.FLINT_AND_STEEL)) {
-            new TemperatureEnvironmentTask(module, plugin, RSVPlayer.getPlayers().get(player.getUniqueId())).runTaskLaterAsynchronously(plugin, 1L);
+            heatSources.update(block);
+            new TemperatureEnvironmentTask(module, plugin, RSVPlayer.getPlayers().get(player.getUniqueId())).startLater(1L);
         }
     }
 
@@ -431,11 +391,14 @@ public class TanEvents extends ModuleEvents implements Listener {
 
         Location loc = event.getPotion().getLocation();
 
+        // the campfires the potion put out aren't known
+        heatSources.invalidate(loc, 2);
+
         double rad = config.getDouble("Temperature.Environment.CubeLength");
 
         Collection<Entity> nearby = loc.getWorld().getNearbyEntities(loc, rad, rad, rad, entity -> entity instanceof Player);
 
-        nearby.forEach(entity -> new TemperatureEnvironmentTask(module, plugin, RSVPlayer.getPlayers().get(entity.getUniqueId())).runTaskLaterAsynchronously(plugin, 1L));
+        nearby.forEach(entity -> new TemperatureEnvironmentTask(module, plugin, RSVPlayer.getPlayers().get(entity.getUniqueId())).startLater(1L));
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -444,11 +407,12 @@ public class TanEvents extends ModuleEvents implements Listener {
             return;
 
         Location loc = event.getEntity().getLocation();
+        heatSources.update(event.getHitBlock());
 
         double rad = config.getDouble("Temperature.Environment.CubeLength");
 
         Collection<Entity> nearby = loc.getWorld().getNearbyEntities(loc, rad, rad, rad, entity -> entity instanceof Player player && RSVPlayer.isValidPlayer(player));
-        nearby.forEach(entity -> new TemperatureEnvironmentTask(module, plugin, RSVPlayer.getPlayers().get(entity.getUniqueId())).runTaskLaterAsynchronously(plugin, 1L));
+        nearby.forEach(entity -> new TemperatureEnvironmentTask(module, plugin, RSVPlayer.getPlayers().get(entity.getUniqueId())).startLater(1L));
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
@@ -600,8 +564,8 @@ public class TanEvents extends ModuleEvents implements Listener {
 
     @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onRegenerate(EntityRegainHealthEvent event) {
-        if (event.getEntity() instanceof Player player && thirstManager.isThirstEnabled(player) && event.getRegainReason() == EntityRegainHealthEvent.RegainReason.SATIATED) {
-            thirstManager.addExhaustion(player, config.getDouble("Thirst.ExhaustionLevelIncrease.RegeneratingHealth"));
+        if (event.getRegainReason() == EntityRegainHealthEvent.RegainReason.SATIATED && event.getEntity() instanceof Player player && thirstEnabled && shouldEventBeRan(player)) {
+            thirstManager.accumulateExhaustion(player, regeneratingExhaustion);
         }
     }
 
@@ -610,6 +574,17 @@ public class TanEvents extends ModuleEvents implements Listener {
         adjustEnvTemp(event);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        // snow, ice, concrete and the blocks lava forms when it meets water
+        adjustEnvTemp(event);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockSpread(BlockSpreadEvent event) {
+        adjustEnvTemp(event);
+    }
+
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent event) {
         adjustEnvTemp(event);
@@ -675,6 +650,52 @@ public class TanEvents extends ModuleEvents implements Listener {
         adjustEnvTemp(event);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWeatherChange(WeatherChangeEvent event) {
+        TemperatureCalculateTask.wakeAll(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onThunderChange(ThunderChangeEvent event) {
+        TemperatureCalculateTask.wakeAll(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTimeSkip(TimeSkipEvent event) {
+        // sleeping or setting the time moves the daylight cycle to another phase at once
+        TemperatureCalculateTask.wakeAll(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        // any click can put on or take off armor, so the armor is read again on the next calculation
+        TemperatureCalculateTask.wake(event.getWhoClicked().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        TemperatureCalculateTask.wake(event.getWhoClicked().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onArmorEquip(PlayerInteractEvent event) {
+        ItemStack item = event.getItem();
+
+        if (Utils.isItemReal(item) && Utils.isArmor(item.getType())) {
+            TemperatureCalculateTask.wake(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDispenseArmor(BlockDispenseArmorEvent event) {
+        TemperatureCalculateTask.wake(event.getTargetEntity().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemBreak(PlayerItemBreakEvent event) {
+        TemperatureCalculateTask.wake(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler
     public void onWorldChange(PlayerChangedWorldEvent event) {
         Player player = event.getPlayer();
@@ -826,6 +847,169 @@ public class TanEvents extends ModuleEvents implements Listener {
         return canteen;
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFluidFlow(BlockFromToEvent event) {
+        // a player the fluid flows into is now in water or lava
+        Block to = event.getToBlock();
+        blockChanged(to, to.getBlockData(), event.getBlock().getBlockData(), 1);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        Map<Block, BlockData> moved = getMovedBlocks(event.getBlocks(), event.getDirection());
+        moved.putIfAbsent(event.getBlock().getRelative(event.getDirection()), Material.PISTON_HEAD.createBlockData());
+        moved.forEach((block, data) -> blockChanged(block, block.getBlockData(), data, 2));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        Map<Block, BlockData> moved = getMovedBlocks(event.getBlocks(), event.getDirection());
+        moved.putIfAbsent(event.getBlock().getRelative(event.getDirection().getOppositeFace()), null);
+        moved.forEach((block, data) -> blockChanged(block, block.getBlockData(), data, 2));
+    }
+
+    /**
+     * @return What each block touched by a piston is changed into, null where it becomes air
+     */
+    @Nonnull
+    private static Map<Block, BlockData> getMovedBlocks(@Nonnull List<Block> blocks, @Nonnull BlockFace direction) {
+        Map<Block, BlockData> moved = new HashMap<>();
+
+        for (Block block : blocks) {
+            moved.putIfAbsent(block, null);
+        }
+        for (Block block : blocks) {
+            moved.put(block.getRelative(direction), block.getBlockData());
+        }
+        return moved;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStructureGrow(StructureGrowEvent event) {
+        // a tree can grow a roof over a player
+        event.getBlocks().forEach(state -> blockChanged(state.getBlock(), state.getBlock().getBlockData(), state.getBlockData(), 1));
+    }
+
+    /**
+     * Re-reads a changed block into the heat source index if it is or becomes a temperature block, and drops what was
+     * cached about the world around it if it changes between fluid and not or between air and solid
+     * @param block The block that changed
+     * @param from What the block was, null for air
+     * @param to What the block is changed into, null for air
+     * @param radius The horizontal distance from a player in which the change matters
+     */
+    private void blockChanged(@Nonnull Block block, @Nullable BlockData from, @Nullable BlockData to, int radius) {
+        BlockTemperatureRules rules = module.getBlockRules();
+
+        if (rules.willAffectTemperature(from) || rules.willAffectTemperature(to)) {
+            heatSources.update(block);
+        }
+
+        if (isFluid(from) != isFluid(to) || isAir(from) != isAir(to)) {
+            TemperatureCalculateTask.invalidateNear(block, radius);
+            columns.invalidate(block);
+            waterSources.invalidate(block);
+        }
+    }
+
+    private static boolean isFluid(@Nullable BlockData data) {
+        if (data == null) {
+            return false;
+        }
+
+        return switch (data.getMaterial()) {
+            case WATER, LAVA, BUBBLE_COLUMN -> true;
+            default -> data instanceof Waterlogged waterlogged && waterlogged.isWaterlogged();
+        };
+    }
+
+    private static boolean isAir(@Nullable BlockData data) {
+        return data == null || data.getMaterial().isAir();
+    }
+
+    /**
+     * Applies the blocks changed by an event that changes many blocks at once to the environment sums of every player
+     * whose scanned cube contains them, instead of scanning the cubes again
+     * @param world The world the blocks are in
+     * @param changed The changed blocks and what they are changed into, null if they are removed
+     * @param rules The compiled temperature blocks
+     */
+    private void applyEnvDeltas(@Nonnull World world, @Nonnull Map<Block, BlockData> changed, @Nonnull BlockTemperatureRules rules) {
+        List<EnvDelta> deltas = new ArrayList<>();
+
+        for (Map.Entry<Block, BlockData> entry : changed.entrySet()) {
+            BlockTemperatureRules.Rule oldRule = rules.getRule(entry.getKey().getBlockData());
+            BlockTemperatureRules.Rule newRule = rules.getRule(entry.getValue());
+
+            if (oldRule == null && newRule == null) {
+                continue;
+            }
+
+            double change = 0D;
+            double regulate = 0D;
+
+            if (oldRule != null) {
+                double val = oldRule.getValue(entry.getKey().getBlockData());
+
+                if (oldRule.regulatory()) {
+                    regulate -= val;
+                }
+                else {
+                    change -= val;
+                }
+            }
+            if (newRule != null) {
+                double val = newRule.getValue(entry.getValue());
+
+                if (newRule.regulatory()) {
+                    regulate += val;
+                }
+                else {
+                    change += val;
+                }
+            }
+
+            Block block = entry.getKey();
+            deltas.add(new EnvDelta(block.getX(), block.getY(), block.getZ(), change, regulate));
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        int reach = config.getInt("Temperature.Environment.CubeLength") - 1;
+
+        for (TemperatureCalculateTask tempTask : TemperatureCalculateTask.getTasks().values()) {
+            Location center = tempTask.getEnvironmentCenter();
+
+            if (!world.equals(center.getWorld())) {
+                continue;
+            }
+
+            int x = center.getBlockX();
+            int y = center.getBlockY();
+            int z = center.getBlockZ();
+            double changeEnv = tempTask.getChangeEnv();
+            double regulateEnv = tempTask.getRegulateEnv();
+            boolean affected = false;
+
+            for (EnvDelta delta : deltas) {
+                if (Math.abs(delta.x() - x) <= reach && Math.abs(delta.y() - y) <= reach && Math.abs(delta.z() - z) <= reach) {
+                    changeEnv += delta.change();
+                    regulateEnv += delta.regulate();
+                    affected = true;
+                }
+            }
+
+            if (affected) {
+                tempTask.setChangeEnv(changeEnv);
+                tempTask.setRegulateEnv(regulateEnv);
+            }
+        }
+    }
+
+    private record EnvDelta(int x, int y, int z, double change, double regulate) {}
+
     public void adjustEnvTemp(Cancellable blockEvent) {
         if (!blockEvent.isCancelled()) {
             Block block = null;
@@ -833,6 +1017,8 @@ public class TanEvents extends ModuleEvents implements Listener {
             BlockData data2 = null;
             World world = null;
             boolean singleBlock = true;
+            // the blocks changed by an event that changes many at once and what they are changed into
+            Map<Block, BlockData> changed = new LinkedHashMap<>();
 
             if (blockEvent instanceof BlockPlaceEvent event) {
                 block = event.getBlockPlaced();
@@ -843,7 +1029,9 @@ public class TanEvents extends ModuleEvents implements Listener {
                 block = event.getBlock();
                 data1 = block.getBlockData();
                 world = block.getWorld();
-                thirstManager.addExhaustion(event.getPlayer(), config.getDouble("Thirst.ExhaustionLevelIncrease.BreakingBlock"));
+                if (thirstEnabled && shouldEventBeRan(event.getPlayer())) {
+                    thirstManager.accumulateExhaustion(event.getPlayer(), breakingExhaustion);
+                }
             }
             else if (blockEvent instanceof FurnaceBurnEvent event) {
                 block = event.getBlock();
@@ -870,9 +1058,16 @@ public class TanEvents extends ModuleEvents implements Listener {
                 data2 = event.getBlockData();
                 world = block.getWorld();
             }
+            else if (blockEvent instanceof BlockFormEvent event) {
+                block = event.getBlock();
+                data1 = block.getBlockData();
+                data2 = event.getNewState().getBlockData();
+                world = block.getWorld();
+            }
             else if (blockEvent instanceof BlockGrowEvent event) {
                 block = event.getBlock();
-                data2 = block.getBlockData();
+                data1 = block.getBlockData();
+                data2 = event.getNewState().getBlockData();
                 world = block.getWorld();
             }
             else if (blockEvent instanceof CauldronLevelChangeEvent event) {
@@ -895,27 +1090,47 @@ public class TanEvents extends ModuleEvents implements Listener {
             else if (blockEvent instanceof BlockIgniteEvent event) {
                 block = event.getBlock();
                 data1 = block.getBlockData();
+                data2 = Material.FIRE.createBlockData();
                 world = block.getWorld();
             }
             else if (blockEvent instanceof BlockExplodeEvent event) {
                 block = event.getBlock();
                 world = block.getWorld();
                 singleBlock = false;
+                event.blockList().forEach(exploded -> {
+                    changed.put(exploded, null);
+                    blockChanged(exploded, exploded.getBlockData(), null, 1);
+                });
             }
             else if (blockEvent instanceof BlockFertilizeEvent event) {
                 block = event.getBlock();
                 world = block.getWorld();
                 singleBlock = false;
+                event.getBlocks().forEach(state -> {
+                    changed.put(state.getBlock(), state.getBlockData());
+                    blockChanged(state.getBlock(), state.getBlock().getBlockData(), state.getBlockData(), 1);
+                });
             }
             else if (blockEvent instanceof SpongeAbsorbEvent event) {
                 block = event.getBlock();
                 world = block.getWorld();
                 singleBlock = false;
+                event.getBlocks().forEach(state -> {
+                    changed.put(state.getBlock(), state.getBlockData());
+                    blockChanged(state.getBlock(), state.getBlock().getBlockData(), state.getBlockData(), 1);
+                });
             }
 
             if (shouldEventBeRan(world)) {
-                ConfigurationSection section = config.getConfigurationSection("Temperature.Environment.Blocks");
-                if (TemperatureEnvironmentTask.willAffectTemperature(data1, section) || TemperatureEnvironmentTask.willAffectTemperature(data2, section)) {
+                if (singleBlock) {
+                    blockChanged(block, data1, data2, 1);
+                }
+
+                BlockTemperatureRules rules = module.getBlockRules();
+                if (!singleBlock) {
+                    applyEnvDeltas(world, changed, rules);
+                }
+                else if (rules.willAffectTemperature(data1) || rules.willAffectTemperature(data2)) {
                     double rad = config.getDouble("Temperature.Environment.CubeLength");
 
                     Collection<Entity> nearby = world.getNearbyEntities(block.getLocation(), rad, rad, rad, entity -> entity instanceof Player);
@@ -925,33 +1140,28 @@ public class TanEvents extends ModuleEvents implements Listener {
                         TemperatureCalculateTask tempTask = TemperatureCalculateTask.getTasks().get(player.getUniqueId());
 
                         if (tempTask != null) {
-                            if (singleBlock) {
-                                double ogVal = TemperatureEnvironmentTask.getValue(data1, section);
-                                double finalVal = TemperatureEnvironmentTask.getValue(data2, section);
+                            double ogVal = rules.getValue(data1);
+                            double finalVal = rules.getValue(data2);
 
-                                double regulateEnv = tempTask.getRegulateEnv();
-                                double changeEnv = tempTask.getChangeEnv();
+                            double regulateEnv = tempTask.getRegulateEnv();
+                            double changeEnv = tempTask.getChangeEnv();
 
-                                if (TemperatureEnvironmentTask.isRegulatory(data1, section)) {
-                                    regulateEnv -= ogVal;
-                                }
-                                else {
-                                    changeEnv -= ogVal;
-                                }
-
-                                if (TemperatureEnvironmentTask.isRegulatory(data2, section)) {
-                                    regulateEnv += finalVal;
-                                }
-                                else {
-                                    changeEnv += finalVal;
-                                }
+                            if (rules.isRegulatory(data1)) {
+                                regulateEnv -= ogVal;
+                            }
+                            else {
+                                changeEnv -= ogVal;
+                            }
 
-                                tempTask.setRegulateEnv(regulateEnv);
-                                tempTask.setChangeEnv(changeEnv);
+                            if (rules.isRegulatory(data2)) {
+                                regulateEnv += finalVal;
                             }
                             else {
-                                new TemperatureEnvironmentTask(module, plugin, RSVPlayer.getPlayers().get(player.getUniqueId())).runTaskLaterAsynchronously(plugin, 1L);
+                                changeEnv += finalVal;
                             }
+
+                            tempTask.setRegulateEnv(regulateEnv);
+                            tempTask.setChangeEnv(changeEnv);
                         }
                     }
                 }
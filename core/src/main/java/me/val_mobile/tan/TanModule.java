@@ -20,11 +20,17 @@ import me.val_mobile.data.ModuleItems;
 import me.val_mobile.data.ModuleRecipes;
 import me.val_mobile.data.RSVConfig;
 import me.val_mobile.data.RSVModule;
+import me.val_mobile.data.storage.PlayerDataStorage;
+import me.val_mobile.data.toughasnails.TanRecord;
+import me.val_mobile.data.toughasnails.TanRecordCodec;
+import me.val_mobile.integrations.CompatiblePlugin;
+import me.val_mobile.integrations.RealisticSeasons;
 import me.val_mobile.rsv.RSVPlugin;
 import me.val_mobile.utils.Utils;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -34,8 +40,21 @@ public class TanModule extends RSVModule {
 
     private final RSVPlugin plugin;
 
-    private final RSVConfig config;
+    private TanRecordCodec playerDataCodec;
+    private PlayerDataStorage<TanRecord> playerDataStorage;
     private TanEvents events;
+    private EnvironmentSnapshots environmentSnapshots;
+    private HeatSourceIndex heatSourceIndex;
+    private ColumnCache columnCache;
+    private WaterSourceCache waterSourceCache;
+    private StatChangeDispatcher statChangeDispatcher;
+    private StatusEffects statusEffects;
+    private SurvivalStats survivalStats;
+    private BlockTemperatureRules blockRules;
+    private FileConfiguration blockRulesConfig;
+    private TemperatureModel temperatureModel;
+    private FileConfiguration temperatureModelConfig;
+    private TemperaturePipeline temperaturePipeline;
 
     public static final String NAME = "ToughAsNails";
     private final Set<UUID> hypothermiaDeath = new HashSet<>();
@@ -50,7 +69,6 @@ public class TanModule extends RSVModule {
     public TanModule(RSVPlugin plugin) {
         super(NAME, plugin, Map.of(), Map.of());
         this.plugin = plugin;
-        this.config = new RSVConfig(plugin, "resources/toughasnails/playerdata.yml");
         this.tempManager = new TempManager(this);
     }
 
@@ -60,6 +78,8 @@ public class TanModule extends RSVModule {
         setItemConfig(new RSVConfig(plugin, "resources/toughasnails/items.yml"));
         setRecipeConfig(new RSVConfig(plugin, "resources/toughasnails/recipes.yml"));
         this.thirstManager = new ThirstManager(this);
+        this.playerDataCodec = new TanRecordCodec(this);
+        this.playerDataStorage = PlayerDataStorage.open(plugin, "toughasnails", playerDataCodec);
 
         setModuleItems(new ModuleItems(this));
         setModuleRecipes(new ModuleRecipes(this, plugin));
@@ -74,6 +94,31 @@ public class TanModule extends RSVModule {
         this.tempGloballyEnabled = config.getBoolean("Temperature.Enabled") && isGloballyEnabled();
         this.thirstGloballyEnabled = config.getBoolean("Thirst.Enabled") && isGloballyEnabled();
 
+        environmentSnapshots = new EnvironmentSnapshots();
+        environmentSnapshots.runTaskTimer(plugin, 0L, 1L);
+
+        heatSourceIndex = new HeatSourceIndex(this, plugin);
+        plugin.getServer().getPluginManager().registerEvents(heatSourceIndex, plugin);
+
+        statChangeDispatcher = new StatChangeDispatcher(this, plugin);
+
+        statusEffects = new StatusEffects(this);
+        statusEffects.runTaskTimer(plugin, 0L, 1L);
+
+        survivalStats = new SurvivalStats(this);
+        survivalStats.runTaskTimer(plugin, 0L, 1L);
+
+        columnCache = new ColumnCache(this);
+        plugin.getServer().getPluginManager().registerEvents(columnCache, plugin);
+
+        waterSourceCache = new WaterSourceCache();
+        plugin.getServer().getPluginManager().registerEvents(waterSourceCache, plugin);
+
+        if (config.getBoolean("Temperature.Pipeline.Enabled", false)) {
+            temperaturePipeline = new TemperaturePipeline(this, plugin);
+            temperaturePipeline.start();
+        }
+
         events = new TanEvents(this, plugin);
 
         getModuleItems().initialize();
@@ -89,6 +134,20 @@ public class TanModule extends RSVModule {
 
             plugin.getLogger().info(message);
         }
+
+        if (environmentSnapshots != null) {
+            environmentSnapshots.cancel();
+        }
+        if (temperaturePipeline != null) {
+            temperaturePipeline.stop();
+        }
+        if (statusEffects != null) {
+            statusEffects.cancel();
+        }
+        if (survivalStats != null) {
+            survivalStats.cancel();
+        }
+        playerDataStorage.close();
     }
 
     @Nonnull
@@ -102,8 +161,87 @@ public class TanModule extends RSVModule {
     }
 
     @Nonnull
-    public RSVConfig getPlayerDataConfig() {
-        return config;
+    public PlayerDataStorage<TanRecord> getPlayerDataStorage() {
+        return playerDataStorage;
+    }
+
+    @Nonnull
+    public TanRecordCodec getPlayerDataCodec() {
+        return playerDataCodec;
+    }
+
+    @Nonnull
+    public EnvironmentSnapshots getEnvironmentSnapshots() {
+        return environmentSnapshots;
+    }
+
+    /**
+     * Gets the compiled temperature blocks, compiling them again if the config was reloaded
+     * @return The compiled temperature blocks
+     */
+    @Nonnull
+    public BlockTemperatureRules getBlockRules() {
+        FileConfiguration config = getUserConfig().getConfig();
+
+        if (config != blockRulesConfig) {
+            blockRules = new BlockTemperatureRules(config.getConfigurationSection("Temperature.Environment.Blocks"));
+            blockRulesConfig = config;
+        }
+        return blockRules;
+    }
+
+    /**
+     * Gets the temperature model, reading its config values again if the config was reloaded
+     * @return The temperature model
+     */
+    @Nonnull
+    public TemperatureModel getTemperatureModel() {
+        FileConfiguration config = getUserConfig().getConfig();
+
+        if (config != temperatureModelConfig) {
+            temperatureModel = new TemperatureModel(config, (RealisticSeasons) CompatiblePlugin.getPlugin(RealisticSeasons.NAME));
+            temperatureModelConfig = config;
+        }
+        return temperatureModel;
+    }
+
+    @Nullable
+    public TemperaturePipeline getTemperaturePipeline() {
+        return temperaturePipeline;
+    }
+
+    @Nonnull
+    public StatChangeDispatcher getStatChangeDispatcher() {
+        return statChangeDispatcher;
+    }
+
+    @Nonnull
+    public StatusEffects getStatusEffects() {
+        return statusEffects;
+    }
+
+    /**
+     * Gets the stats published for other plugins, which can be read from any thread
+     * @return The published stats
+     */
+    @Nonnull
+    public SurvivalStats getSurvivalStats() {
+        return survivalStats;
+    }
+
+    @Nonnull
+    public ColumnCache getColumnCache() {
+        return columnCache;
+    }
+
+    @Nonnull
+    public WaterSourceCache getWaterSourceCache() {
+        return waterSourceCache;
+    }
+
+    @Nonnull
+    public HeatSourceIndex getHeatSourceIndex() {
+        return heatSourceIndex;
     }
 
     @Nonnull
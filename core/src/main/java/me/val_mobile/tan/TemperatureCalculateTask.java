@@ -23,20 +23,21 @@ import me.val_mobile.rsv.RSVPlugin;
 import me.val_mobile.utils.RSVItem;
 import me.val_mobile.utils.RSVTask;
 import me.val_mobile.utils.Utils;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -52,16 +53,25 @@ public class TemperatureCalculateTask extends BukkitRunnable implements RSVTask
     private final UUID id;
     private final Collection<String> allowedWorlds;
     private double equilibriumTemp;
-    private double regulate = 0D;
-    private double change = 0D;
     private double regulateEnv = 0D;
     private double changeEnv = 0D;
-    private final double seasonsDefaultTemp;
-    private final double seasonsColdMultiplier;
-    private final double seasonsHotMultiplier;
     private final double distSqr;
+    private final int cubeReach;
     private double temp;
     private Location currentLoc;
+    private boolean scheduled = false;
+    private final int rescanPeriod;
+    private int rescanCountdown;
+    private final boolean adaptive;
+    private TemperatureModel.Input lastInput;
+    private TemperatureModel.Result lastResult;
+    private TemperatureModel lastModel;
+    private Location lastLoc;
+    private boolean stable = false;
+    private boolean predictable = false;
+    private long evaluations = 0L;
+    // the evaluation at which the next periodic rescan is due, until then a stable or predictable player is not read again unless woken
+    private long predictedUntil = 0L;
     public static final double MINIMUM_TEMPERATURE = 0.0;
     public static final double MAXIMUM_TEMPERATURE = 25.0;
 
@@ -78,248 +88,234 @@ public class TemperatureCalculateTask extends BukkitRunnable implements RSVTask
         this.allowedWorlds = module.getAllowedWorlds();
         this.currentLoc = player.getPlayer().getLocation();
         this.distSqr = config.getDouble("Temperature.Environment.CubeLength") * config.getDouble("Temperature.Environment.CubeLength");
+        this.cubeReach = config.getInt("Temperature.Environment.CubeLength") - 1;
         this.rs = (RealisticSeasons) CompatiblePlugin.getPlugin(RealisticSeasons.NAME);
-
-        this.seasonsDefaultTemp = rs.getDefaultTemperature();
-        this.seasonsColdMultiplier = rs.getColdMultiplier();
-        this.seasonsHotMultiplier = rs.getHotMultiplier();
+        this.adaptive = config.getBoolean("Temperature.Adaptive.Enabled", false);
+        this.rescanPeriod = config.getInt("Temperature.Environment.RescanPeriod", 12);
+        this.rescanCountdown = rescanPeriod;
         tasks.put(id, this);
     }
 
     @Override
     public void run() {
+        TemperatureModel.Input input = gather();
+
+        if (input != null) {
+            TemperatureModel.Result result = getCachedResult(input);
+            apply(input, result == null ? module.getTemperatureModel().compute(input) : result);
+        }
+    }
+
+    /**
+     * Reads everything the temperature model needs from the player and the world, must be called on the main thread
+     * @return The model's input or null if the task was stopped or the player's temperature can't change
+     */
+    @Nullable
+    public TemperatureModel.Input gather() {
         Player player = this.player.getPlayer();
 
-        if (conditionsMet(player)) {
-            double oldTemp = temp;
+        if (!conditionsMet(player)) {
+            stop();
+            return null;
+        }
 
-            if (rs.isIntegrated() && rs.hasTemperatureEnabled(player)) {
-                int seasonsTemp = rs.getTemperature(player);
-                temp = (seasonsTemp - seasonsDefaultTemp) * (seasonsTemp > seasonsDefaultTemp ? seasonsHotMultiplier : seasonsColdMultiplier) + MAXIMUM_TEMPERATURE / 2;
-            }
-            else {
-                double tempMaxChange = config.getDouble("Temperature.MaxChange");
+        if (rs.isIntegrated() && rs.hasTemperatureEnabled(player)) {
+            return new TemperatureModel.Input(temp, equilibriumTemp, rs.getTemperature(player), 0D, false, 0L, false, false, false, false, false, List.of(), 0D, 0D, hasColdImmunity(player), hasHotImmunity(player));
+        }
 
-                regulate = 0D;
-                change = 0D;
-                World pWorld = player.getWorld();
-                Location pLoc = player.getLocation();
-                double px = pLoc.getX();
-                double py = pLoc.getY();
-                double pz = pLoc.getZ();
+        World pWorld = player.getWorld();
+        Location pLoc = player.getLocation();
+        double px = pLoc.getX();
+        double py = pLoc.getY();
+        double pz = pLoc.getZ();
 
-                double biomeTemp = pWorld.getTemperature((int) px, (int) py, (int) pz); // create a variable to store the temperature
+        double envChange = changeEnv;
+        double envRegulate = regulateEnv;
 
-                if (biomeTemp > config.getDouble("Temperature.Environment.BiomeTemperature.HotCutoff")) {
-                    biomeTemp *= config.getDouble("Temperature.Environment.BiomeTemperature.HotMultiplier");
-                }
-                else {
-                    // less than hot cutoff
-                    if (biomeTemp >= config.getDouble("Temperature.Environment.BiomeTemperature.WarmCutoff")) {
-                        biomeTemp *= config.getDouble("Temperature.Environment.BiomeTemperature.WarmMultiplier");
-                    }
-                    // less than warm cutoff
-                    else if (biomeTemp >= config.getDouble("Temperature.Environment.BiomeTemperature.ModerateCutoff")) {
-                        biomeTemp *= config.getDouble("Temperature.Environment.BiomeTemperature.ModerateMultiplier");
-                    }
-                    // less than moderate cutoff
-                    else if (biomeTemp >= config.getDouble("Temperature.Environment.BiomeTemperature.CoolCutoff")) {
-                        biomeTemp *= config.getDouble("Temperature.Environment.BiomeTemperature.CoolMultiplier");
-                    }
-                    // less than cool cutoff
-                    else if (biomeTemp >= config.getDouble("Temperature.Environment.BiomeTemperature.ColdCutoff")) {
-                        biomeTemp *= config.getDouble("Temperature.Environment.BiomeTemperature.ColdMultiplier");
-                    }
-                    else {
-                        biomeTemp *= config.getDouble("Temperature.Environment.BiomeTemperature.FrigidMultiplier");
-                    }
-                }
+        evaluations++;
 
-                double daylightChange = pWorld.getEnvironment() == World.Environment.NORMAL ? Math.sin(2 * Math.PI / 24000 * pWorld.getTime() - 3500) * config.getDouble("Temperature.Environment.DaylightCycleMultiplier") : 0D;
-                double worldChange = biomeTemp + daylightChange;
-                change += worldChange;
+        // equipment, weather and block changes wake the task, so only what changes without an event is checked here
+        if (adaptive && (stable || predictable) && evaluations < predictedUntil && lastInput != null && lastModel == module.getTemperatureModel()
+                && isSamePosition(pLoc, lastLoc) && (player.getFireTicks() > 0) == lastInput.burning()
+                && envChange == lastInput.changeEnv() && envRegulate == lastInput.regulateEnv()) {
+            rescanCountdown--;
 
-                change += changeEnv;
-                regulate += regulateEnv;
+            if (stable && temp == lastInput.temp()) {
+                return null;
+            }
+            if (predictable) {
+                return lastInput.withTemp(temp, equilibriumTemp);
+            }
+        }
 
-                if (pLoc.getWorld().getName().equals(currentLoc.getWorld().getName())) {
-                    if (pLoc.distanceSquared(currentLoc) > distSqr) {
-                        currentLoc = pLoc;
-                        new TemperatureEnvironmentTask(module, plugin, this.player).start();
-                    }
-                }
-                else {
-                    currentLoc = pLoc;
-                    new TemperatureEnvironmentTask(module, plugin, this.player).start();
-                }
+        rescanCountdown--;
 
+        if (pLoc.getWorld().getName().equals(currentLoc.getWorld().getName())) {
+            if (pLoc.distanceSquared(currentLoc) > distSqr) {
+                currentLoc = pLoc;
+                rescanCountdown = rescanPeriod;
+                new TemperatureEnvironmentTask(module, plugin, this.player).start();
+            }
+            // block changes are applied to the sums and the index as they happen, the periodic scan re-reads the
+            // chunks from the world to correct anything that changed without an event
+            else if (rescanPeriod > 0 && rescanCountdown <= 0) {
+                currentLoc = pLoc;
+                rescanCountdown = rescanPeriod;
+                new TemperatureEnvironmentTask(module, plugin, this.player).rebuildIndex().start();
+            }
+        }
+        else {
+            currentLoc = pLoc;
+            rescanCountdown = rescanPeriod;
+            new TemperatureEnvironmentTask(module, plugin, this.player).start();
+        }
 
-                if (player.isInWater()) {
-                    add("Temperature.Environment.SubmergedWater");
-                }
+        List<String> armor = new ArrayList<>();
 
-                if (Utils.isInLava(player)) {
-                    add("Temperature.Environment.SubmergedLava");
-                }
+        for (ItemStack item : player.getInventory().getArmorContents()) {
+            if (Utils.isItemReal(item)) {
+                if (RSVItem.isRSVItem(item)) {
+                    String itemName = RSVItem.getNameFromItem(item);
 
-                if (Utils.isExposedToSky(player)) {
-                    if (pWorld.hasStorm()) {
-                        add("Temperature.Environment.Storming");
+                    switch (itemName) {
+                        case "wool_hood", "wool_boots", "wool_pants", "wool_jacket", "jelled_slime_helmet", "jelled_slime_chestplate", "jelled_slime_leggings", "jelled_slime_boots" ->
+                                armor.add(itemName);
+                        default -> {}
                     }
                 }
                 else {
-                    add("Temperature.Environment.Housed");
-                }
-
-                if (player.getFireTicks() > 0) {
-                    add("Temperature.Environment.Burning");
+                    Material mat = item.getType();
+                    if (Utils.isArmor(mat)) {
+                        armor.add(mat.toString());
+                    }
                 }
 
-                for (ItemStack item : player.getInventory().getArmorContents()) {
-                    if (Utils.isItemReal(item)) {
-                        ItemMeta meta = item.getItemMeta();
-
-                        if (RSVItem.isRSVItem(item)) {
-                            String itemName = RSVItem.getNameFromItem(item);
-
-                            switch (itemName) {
-                                case "wool_hood", "wool_boots", "wool_pants", "wool_jacket", "jelled_slime_helmet", "jelled_slime_chestplate", "jelled_slime_leggings", "jelled_slime_boots" ->
-                                        add("Temperature.Armor." + itemName);
-                                default -> {}
-                            }
-                        }
-                        else {
-                            Material mat = item.getType();
-                            if (Utils.isArmor(mat)) {
-                                add("Temperature.Armor." + mat);
-                            }
-                        }
-
-//                        if (meta.hasEnchant(RSVEnchants.COOLING)) {
-//                            add("Temperature.Enchantments.Cooling");
-//                        }
+//                if (meta.hasEnchant(RSVEnchants.COOLING)) {
+//                    add("Temperature.Enchantments.Cooling");
+//                }
 //
-//                        if (meta.hasEnchant(RSVEnchants.WARMING)) {
-//                            add("Temperature.Enchantments.Warming");
-//                        }
+//                if (meta.hasEnchant(RSVEnchants.WARMING)) {
+//                    add("Temperature.Enchantments.Warming");
+//                }
 //
-//                        if (meta.hasEnchant(RSVEnchants.OZZY_LINER)) {
-//                            add("Temperature.Enchantments.OzzyLiner");
-//                        }
-                    }
-                }
-
-                double normalTemp = NEUTRAL_TEMPERATURE + change;
-                double regulatedTemp = temp;
-
-                if (normalTemp != NEUTRAL_TEMPERATURE) {
-                    if (normalTemp > NEUTRAL_TEMPERATURE) {
-                        regulatedTemp = Math.max(normalTemp - regulate, NEUTRAL_TEMPERATURE);
-
-                    }
-                    else {
-                        regulatedTemp = Math.min(normalTemp + regulate, NEUTRAL_TEMPERATURE);
-                    }
-                }
-
-                equilibriumTemp = regulatedTemp;
-
-                if (Math.abs(temp - regulatedTemp) < tempMaxChange) {
-                    temp = regulatedTemp;
-                }
-                else {
-                    temp = regulatedTemp > temp ? temp + tempMaxChange : temp - tempMaxChange;
-                }
+//                if (meta.hasEnchant(RSVEnchants.OZZY_LINER)) {
+//                    add("Temperature.Enchantments.OzzyLiner");
+//                }
             }
+        }
 
-            if (temp != NEUTRAL_TEMPERATURE) {
-                if (temp < NEUTRAL_TEMPERATURE && hasColdImmunity(player)) {
-                    temp = NEUTRAL_TEMPERATURE;
-                }
-                if (temp > NEUTRAL_TEMPERATURE && hasHotImmunity(player)) {
-                    temp = NEUTRAL_TEMPERATURE;
-                }
+        boolean storming = pWorld.hasStorm();
+        boolean burning = player.getFireTicks() > 0;
+        boolean coldImmune = hasColdImmunity(player);
+        boolean hotImmune = hasHotImmunity(player);
+
+        // nothing the last result depends on changed, so the world doesn't have to be read again
+        if (adaptive && (stable || predictable) && lastInput != null && lastModel == module.getTemperatureModel() && isSamePosition(pLoc, lastLoc)
+                && storming == lastInput.storming() && burning == lastInput.burning()
+                && envChange == lastInput.changeEnv() && envRegulate == lastInput.regulateEnv()
+                && coldImmune == lastInput.coldImmune() && hotImmune == lastInput.hotImmune() && armor.equals(lastInput.armor())) {
+            if (stable && temp == lastInput.temp()) {
+                return lastInput;
+            }
+            // the equilibrium can't move on its own, so the player keeps stepping towards it without a world read
+            // until they reach it or something around them changes
+            if (predictable) {
+                return lastInput.withTemp(temp, equilibriumTemp);
             }
+        }
 
-            if (!hasColdImmunity(player)) {
-                if (!rs.disableHypothermiaCompletely()) {
-                    if (config.getBoolean("Temperature.Hypothermia.Enabled")) {
-                        if (temp <= config.getDouble("Temperature.Hypothermia.Temperature")) {
-                            if (!HypothermiaTask.hasTask(id)) {
-                                new HypothermiaTask(module, plugin, this.player).start();
-                            }
-                        }
-                    }
-                }
+        stable = false;
+        predictable = false;
+        lastLoc = pLoc;
+        ColumnCache columns = module.getColumnCache();
+        double biomeChange = columns.getBiomeTemperature(pWorld, (int) px, (int) py, (int) pz);
+        boolean exposedToSky = py >= columns.getHighestBlockY(pWorld, pLoc.getBlockX(), pLoc.getBlockZ());
+
+        return new TemperatureModel.Input(temp, equilibriumTemp, null, biomeChange,
+                pWorld.getEnvironment() == World.Environment.NORMAL, pWorld.getTime(),
+                player.isInWater(), Utils.isInLava(player), exposedToSky, storming,
+                burning, armor, envChange, envRegulate, coldImmune, hotImmune);
+    }
 
-                if (!rs.disableColdBreath()) {
-                    if (!player.hasPermission("realisticsurvival.toughasnails.resistance.cold.breath")) {
-                        if (config.getBoolean("Temperature.ColdBreath.Enabled")) {
-                            if (temp <= config.getDouble("Temperature.ColdBreath.MaximumTemperature")) {
-                                if (!ColdBreathTask.hasTask(id)) {
-                                    new ColdBreathTask(module, plugin, this.player).start();
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * Gets the last result if it was computed from this input, which is the case when gathering found nothing changed
+     * @param input The gathered input
+     * @return The last result or null if the input has to be computed
+     */
+    @Nullable
+    public TemperatureModel.Result getCachedResult(@Nonnull TemperatureModel.Input input) {
+        return input == lastInput ? lastResult : null;
+    }
 
-            if (!hasHotImmunity(player)) {
-                if (!rs.disableHyperthermiaCompletely()) {
-                    if (config.getBoolean("Temperature.Hyperthermia.Enabled")) {
-                        if (temp >= config.getDouble("Temperature.Hyperthermia.Temperature")) {
-                            if (!HyperthermiaTask.hasTask(id)) {
-                                new HyperthermiaTask(module, plugin, this.player).start();
-                            }
-                        }
-                    }
-                }
+    /**
+     * Makes the next calculation read the world again if a block changed near the player, since the blocks around
+     * and above the player decide if they are in water, in lava or under a roof
+     * @param block The block that changed
+     * @param radius The horizontal distance from the player in which changes matter
+     */
+    public void invalidate(@Nonnull Block block, int radius) {
+        if (lastLoc != null && block.getWorld().equals(lastLoc.getWorld())
+                && Math.abs(block.getX() - lastLoc.getBlockX()) <= radius && Math.abs(block.getZ() - lastLoc.getBlockZ()) <= radius) {
+            stable = false;
+            predictable = false;
+        }
+    }
 
-                if (!rs.disableSweating()) {
-                    if (!player.hasPermission("realisticsurvival.toughasnails.resistance.hot.sweat")) {
-                        if (config.getBoolean("Temperature.Sweating.Enabled")) {
-                            if (temp >= config.getDouble("Temperature.Sweating.MinimumTemperature")) {
-                                if (!SweatTask.hasTask(id)) {
-                                    new SweatTask(module, plugin, this.player).start();
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    /**
+     * Makes the next calculation read everything again instead of relying on the last prediction, used when
+     * something the prediction depends on changed
+     */
+    public void wake() {
+        predictedUntil = 0L;
+    }
 
-            if (!Utils.doublesEquals(temp, oldTemp)) {
-                Bukkit.getServer().getPluginManager().callEvent(new TemperatureChangeEvent(player, oldTemp, temp));
-            }
-            manager.setTemperature(player, temp);
+    /**
+     * Applies a computed temperature to the player, must be called on the main thread
+     * @param input The input the temperature was computed from
+     * @param result The computed temperature
+     */
+    public void apply(@Nonnull TemperatureModel.Input input, @Nonnull TemperatureModel.Result result) {
+        Player player = this.player.getPlayer();
+
+        if (tasks.get(id) != this) {
+            return;
         }
-        else {
+
+        if (!conditionsMet(player)) {
             stop();
+            return;
         }
-    }
 
-    public void add(String configPath) {
-        double amount = config.getDouble(configPath + ".Value");
+        // the temperature was set by something else while the result was computed
+        if (!Utils.doublesEquals(temp, input.temp())) {
+            return;
+        }
 
-        if (config.contains(configPath + ".Enabled")) {
-            if (config.getBoolean(configPath + ".Enabled")) {
-                if (config.getBoolean(configPath + ".IsRegulatory")) {
-                    regulate += amount;
-                }
-                else {
-                    change += amount;
-                }
-            }
+        if (adaptive) {
+            TemperatureModel model = module.getTemperatureModel();
+
+            lastInput = input;
+            lastResult = result;
+            lastModel = model;
+            stable = model.isStable(input, result);
+            predictable = model.isPredictable(input);
+            predictedUntil = rescanPeriod > 0 ? evaluations + rescanCountdown : Long.MAX_VALUE;
         }
-        else {
-            if (config.getBoolean(configPath + ".IsRegulatory")) {
-                regulate += amount;
-            }
-            else {
-                change += amount;
-            }
+
+        double oldTemp = temp;
+        temp = result.temp();
+        equilibriumTemp = result.equilibriumTemp();
+
+        module.getStatusEffects().update(player, StatusEffects.Stat.TEMPERATURE, temp);
+
+        if (!Utils.doublesEquals(temp, oldTemp)) {
+            module.getStatChangeDispatcher().temperatureChanged(player, oldTemp, temp);
         }
+        manager.setTemperature(player, temp);
+    }
+
+    private static boolean isSamePosition(@Nonnull Location loc, @Nullable Location other) {
+        return other != null && loc.getWorld().equals(other.getWorld()) && loc.getX() == other.getX() && loc.getY() == other.getY() && loc.getZ() == other.getZ();
     }
 
     private boolean hasHotImmunity(@Nonnull Player player) {
@@ -338,21 +334,77 @@ public class TemperatureCalculateTask extends BukkitRunnable implements RSVTask
     @Override
     public void start() {
         new TemperatureEnvironmentTask(module, plugin, player).start();
-        int tickPeriod = config.getInt("Temperature.CalculateTickPeriod"); // get the tick period
-        this.runTaskTimer(plugin, 0L, tickPeriod);
+
+        // the pipeline calculates every player's temperature together instead
+        if (module.getTemperaturePipeline() == null) {
+            int tickPeriod = config.getInt("Temperature.CalculateTickPeriod"); // get the tick period
+            this.runTaskTimer(plugin, 0L, tickPeriod);
+            scheduled = true;
+        }
     }
 
     @Override
     public void stop() {
         manager.setTemperature(player.getPlayer(), temp);
         tasks.remove(id);
-        cancel();
+        module.getStatChangeDispatcher().forget(id);
+
+        if (scheduled) {
+            cancel();
+        }
     }
 
     private void saveData() {
         RSVPlayer.getPlayers().get(id).getTanDataModule().saveData();
     }
 
+    /**
+     * Makes the players near a changed block read the world again on their next calculation
+     * @param block The block that changed
+     * @param radius The horizontal distance from a player in which changes matter
+     */
+    public static void invalidateNear(@Nonnull Block block, int radius) {
+        for (TemperatureCalculateTask task : tasks.values()) {
+            if (task.isInCube(block)) {
+                task.invalidate(block, radius);
+            }
+        }
+    }
+
+    /**
+     * Wakes a player's task, see {@link #wake()}
+     * @param id The player's uuid
+     */
+    public static void wake(@Nonnull UUID id) {
+        TemperatureCalculateTask task = tasks.get(id);
+
+        if (task != null) {
+            task.wake();
+        }
+    }
+
+    /**
+     * Wakes the tasks of every player in a world, see {@link #wake()}
+     * @param world The world
+     */
+    public static void wakeAll(@Nonnull World world) {
+        for (TemperatureCalculateTask task : tasks.values()) {
+            if (world.equals(task.currentLoc.getWorld())) {
+                task.wake();
+            }
+        }
+    }
+
+    /**
+     * @return Whether a block is inside the cube of blocks that was last scanned around the player
+     */
+    private boolean isInCube(@Nonnull Block block) {
+        return block.getWorld().equals(currentLoc.getWorld())
+                && Math.abs(block.getX() - currentLoc.getBlockX()) <= cubeReach
+                && Math.abs(block.getY() - currentLoc.getBlockY()) <= cubeReach
+                && Math.abs(block.getZ() - currentLoc.getBlockZ()) <= cubeReach;
+    }
+
     public static boolean hasTask(UUID id) {
         return tasks.containsKey(id) && tasks.get(id) != null;
     }
@@ -361,6 +413,15 @@ public class TemperatureCalculateTask extends BukkitRunnable implements RSVTask
         return tasks;
     }
 
+    /**
+     * Gets where the player was when the blocks around them were last scanned
+     * @return The center of the scanned cube
+     */
+    @Nonnull
+    public Location getEnvironmentCenter() {
+        return currentLoc;
+    }
+
     public double getEquilibriumTemp() {
         return equilibriumTemp;
     }
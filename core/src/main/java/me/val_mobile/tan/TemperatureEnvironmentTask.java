@@ -19,19 +19,19 @@ package me.val_mobile.tan;
 import me.val_mobile.data.RSVPlayer;
 import me.val_mobile.rsv.RSVPlugin;
 import me.val_mobile.utils.RSVTask;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
-import org.bukkit.block.Block;
-import org.bukkit.block.data.BlockData;
-import org.bukkit.block.data.Levelled;
-import org.bukkit.block.data.Lightable;
-import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public class TemperatureEnvironmentTask extends BukkitRunnable implements RSVTask {
 
@@ -40,7 +40,14 @@ public class TemperatureEnvironmentTask extends BukkitRunnable implements RSVTas
     private final RSVPlugin plugin;
     private final RSVPlayer player;
     private final Collection<String> allowedWorlds;
-    private final ConfigurationSection section;
+    private final BlockTemperatureRules rules;
+    private final EnvironmentSnapshots snapshots;
+    private final HeatSourceIndex index;
+    private final List<HeatSourceIndex.ChunkSources> chunks = new ArrayList<>();
+    private final List<ChunkSnapshot> chunkSnapshots = new ArrayList<>();
+    private final List<Integer> chunkVersions = new ArrayList<>();
+    private int minX, minY, minZ, maxX, maxY, maxZ;
+    private boolean rebuild = false;
     private double regulate = 0D;
     private double change = 0D;
 
@@ -50,161 +57,107 @@ public class TemperatureEnvironmentTask extends BukkitRunnable implements RSVTas
         this.player = player;
         this.allowedWorlds = module.getAllowedWorlds();
         this.calcTask = TemperatureCalculateTask.getTasks().get(player.getPlayer().getUniqueId());
-        this.section = config.getConfigurationSection("Temperature.Environment.Blocks");
+        this.rules = module.getBlockRules();
+        this.snapshots = module.getEnvironmentSnapshots();
+        this.index = module.getHeatSourceIndex();
     }
 
     @Override
     public void run() {
-        Player player = this.player.getPlayer();
-
-        if (conditionsMet(player)) {
-            regulate = 0D;
-            change = 0D;
-            Location pLoc = player.getLocation();
-            double px = pLoc.getX();
-            double py = pLoc.getY();
-            double pz = pLoc.getZ();
-
-            int cubeLength = config.getInt("Temperature.Environment.CubeLength");
-
-            for (int x = -(cubeLength - 1); x < cubeLength; x++) {
-                for (int y = -(cubeLength - 1); y < cubeLength; y++) {
-                    for (int z = -(cubeLength - 1); z < cubeLength; z++) {
-                        Location loc = new Location(player.getWorld(), px + x, py + y, pz + z);
-                        Block block = loc.getBlock();
-
-                        if (!block.isEmpty()) {
-                            if (willAffectTemperature(block)) {
-                                add(block);
-                            }
-                        }
-                    }
-                }
-            }
-            calcTask.setChangeEnv(change);
-            calcTask.setRegulateEnv(regulate);
-        }
-        else {
-            stop();
-        }
-    }
-
-    public static boolean willAffectTemperature(@Nullable BlockData data, @Nonnull ConfigurationSection section) {
-        if (data == null) {
-            return false;
-        }
+        regulate = 0D;
+        change = 0D;
 
-        String material = data.getMaterial().toString();
+        for (int i = 0; i < chunks.size(); i++) {
+            HeatSourceIndex.ChunkSources sources = chunks.get(i);
+            ChunkSnapshot snapshot = chunkSnapshots.get(i);
 
-        if (!section.contains(material)) {
-            return false;
-        }
+            Collection<HeatSourceIndex.HeatSource> found = snapshot == null ? sources.getSources() : sources.build(snapshot, chunkVersions.get(i), rules, rebuild);
 
-        if (data instanceof Lightable lightable) {
-            if (section.contains(material + ".Lit")) {
-                return section.getBoolean(material + ".Lit") == lightable.isLit();
-            }
-        }
-        else if (data instanceof Levelled levelled) {
-            if (section.contains(material + ".MaximumLevel")) {
-                return levelled.getLevel() <= section.getInt(material + ".MaximumLevel");
-            }
-            else {
-                if (section.contains(material + ".MinimumLevel")) {
-                    return levelled.getLevel() >= section.getInt(material + ".MinimumLevel");
+            for (HeatSourceIndex.HeatSource source : found) {
+                if (source.x() >= minX && source.x() <= maxX && source.y() >= minY && source.y() <= maxY && source.z() >= minZ && source.z() <= maxZ) {
+                    if (source.regulatory()) {
+                        regulate += source.value();
+                    }
+                    else {
+                        change += source.value();
+                    }
                 }
             }
         }
-        return true;
-    }
-
-    public static boolean willAffectTemperature(@Nonnull Block block, @Nonnull ConfigurationSection section) {
-        return willAffectTemperature(block.getBlockData(), section);
-    }
-
-    public static boolean isRegulatory(@Nullable BlockData blockData, @Nonnull ConfigurationSection section) {
-        if (blockData == null) {
-            return false;
-        }
-        return section.getBoolean(blockData.getMaterial() + ".IsRegulatory");
+        calcTask.setChangeEnv(change);
+        calcTask.setRegulateEnv(regulate);
     }
 
-    public static boolean isRegulatory(@Nonnull Block block, @Nonnull ConfigurationSection section) {
-        return isRegulatory(block.getBlockData(), section);
+    @Override
+    public boolean conditionsMet(@Nullable Player player) {
+        return globalConditionsMet(player) && calcTask != null && allowedWorlds.contains(player.getWorld().getName());
     }
 
-    public static double getValue(@Nullable BlockData blockData, @Nonnull ConfigurationSection section) {
-        if (blockData == null) {
-            return 0D;
-        }
+    /**
+     * Collects the indexed chunks around the player on the main thread and then sums them off the main thread
+     */
+    @Override
+    public void start() {
+        Player player = this.player.getPlayer();
 
-        if (!section.contains(blockData.getMaterial() + ".Value")) {
-            return 0D;
+        if (!conditionsMet(player)) {
+            return;
         }
 
-        double val = section.getDouble(blockData.getMaterial() + ".Value");
-        String type = blockData.getMaterial().toString();
-
-        if (blockData instanceof Lightable lightable) {
-            if (section.contains(type + ".Lit") && section.getBoolean(type + ".Lit")) {
-                return lightable.isLit() ? val : 0D;
-            }
-        }
-        if (blockData instanceof Levelled levelled) {
-            if (section.contains(type + ".MinimumLevel")) {
-                int minLevel = section.getInt(type + ".MinimumLevel");
-                return levelled.getLevel() >= minLevel ? val : 0D;
-            }
-            else if (section.contains(type + ".MaximumLevel")) {
-                int maxLevel = section.getInt(type + ".MaximumLevel");
-                return levelled.getLevel() <= maxLevel ? val : 0D;
-            }
-        }
-        return val;
-    }
+        World world = player.getWorld();
+        Location pLoc = player.getLocation();
+        int cubeLength = config.getInt("Temperature.Environment.CubeLength");
 
-    public static double getValue(@Nonnull Block block, @Nonnull ConfigurationSection section) {
-        return getValue(block.getBlockData(), section);
-    }
+        minX = pLoc.getBlockX() - (cubeLength - 1);
+        maxX = pLoc.getBlockX() + (cubeLength - 1);
+        minZ = pLoc.getBlockZ() - (cubeLength - 1);
+        maxZ = pLoc.getBlockZ() + (cubeLength - 1);
+        // blocks outside the world's height are always air
+        minY = Math.max(pLoc.getBlockY() - (cubeLength - 1), world.getMinHeight());
+        maxY = Math.min(pLoc.getBlockY() + (cubeLength - 1), world.getMaxHeight() - 1);
 
-    public boolean willAffectTemperature(@Nonnull Block block) {
-        return willAffectTemperature(block.getBlockData(), section);
-    }
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                HeatSourceIndex.ChunkSources sources = index.getSources(world, chunkX, chunkZ);
 
-    public void add(@Nonnull BlockData data) {
-        String type = data.getMaterial().toString();
+                if (sources == null) {
+                    continue;
+                }
 
-        double val = getValue(data, section);
+                chunks.add(sources);
 
-        if (section.getBoolean(type + ".IsRegulatory")) {
-            regulate += val;
-        }
-        else {
-            change += val;
+                // chunks that haven't been indexed yet are indexed by the scan from this tick's snapshot
+                if (sources.isBuilt() && !rebuild) {
+                    chunkSnapshots.add(null);
+                    chunkVersions.add(0);
+                }
+                else {
+                    chunkSnapshots.add(snapshots.getSnapshot(world, chunkX, chunkZ));
+                    chunkVersions.add(sources.getVersion());
+                }
+            }
         }
-    }
-
-    public void add(@Nonnull Block data) {
-        String type = data.getType().toString();
-
-        double val = getValue(data, section);
 
-        if (section.getBoolean(type + ".IsRegulatory")) {
-            regulate += val;
-        }
-        else {
-            change += val;
-        }
+        this.runTaskAsynchronously(plugin);
     }
 
-    @Override
-    public boolean conditionsMet(@Nullable Player player) {
-        return globalConditionsMet(player) && calcTask != null && allowedWorlds.contains(player.getWorld().getName());
+    /**
+     * Makes the scan re-index its chunks from fresh snapshots instead of summing the index as it is, so blocks that
+     * changed without an event the index saw are corrected
+     * @return This task
+     */
+    @Nonnull
+    public TemperatureEnvironmentTask rebuildIndex() {
+        this.rebuild = true;
+        return this;
     }
 
-    @Override
-    public void start() {
-        this.runTaskAsynchronously(plugin);
+    /**
+     * Starts the scan after a delay, used when the blocks around the player are about to change
+     * @param delay The delay in ticks
+     */
+    public void startLater(long delay) {
+        Bukkit.getScheduler().runTaskLater(plugin, this::start, delay);
     }
 
     @Override
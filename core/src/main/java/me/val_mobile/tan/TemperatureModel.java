@@ -0,0 +1,321 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import me.val_mobile.integrations.RealisticSeasons;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static me.val_mobile.tan.TemperatureCalculateTask.MAXIMUM_TEMPERATURE;
+import static me.val_mobile.tan.TemperatureCalculateTask.NEUTRAL_TEMPERATURE;
+
+/**
+ * The temperature model with its config values read once. Computing a temperature only uses the input it is given,
+ * so it can run off the main thread
+ */
+public class TemperatureModel {
+
+    private static final double STABILITY_MARGIN = 1E-9;
+    private final double maxChange;
+    private final double hotCutoff;
+    private final double hotMultiplier;
+    private final double warmCutoff;
+    private final double warmMultiplier;
+    private final double moderateCutoff;
+    private final double moderateMultiplier;
+    private final double coolCutoff;
+    private final double coolMultiplier;
+    private final double coldCutoff;
+    private final double coldMultiplier;
+    private final double frigidMultiplier;
+    private final double daylightMultiplier;
+    private final Modifier submergedWater;
+    private final Modifier submergedLava;
+    private final Modifier storming;
+    private final Modifier housed;
+    private final Modifier burning;
+    private final Map<String, Modifier> armor = new HashMap<>();
+    private final double seasonsDefaultTemp;
+    private final double seasonsColdMultiplier;
+    private final double seasonsHotMultiplier;
+
+    public TemperatureModel(@Nonnull FileConfiguration config, @Nonnull RealisticSeasons rs) {
+        this.maxChange = config.getDouble("Temperature.MaxChange");
+        this.hotCutoff = config.getDouble("Temperature.Environment.BiomeTemperature.HotCutoff");
+        this.hotMultiplier = config.getDouble("Temperature.Environment.BiomeTemperature.HotMultiplier");
+        this.warmCutoff = config.getDouble("Temperature.Environment.BiomeTemperature.WarmCutoff");
+        this.warmMultiplier = config.getDouble("Temperature.Environment.BiomeTemperature.WarmMultiplier");
+        this.moderateCutoff = config.getDouble("Temperature.Environment.BiomeTemperature.ModerateCutoff");
+        this.moderateMultiplier = config.getDouble("Temperature.Environment.BiomeTemperature.ModerateMultiplier");
+        this.coolCutoff = config.getDouble("Temperature.Environment.BiomeTemperature.CoolCutoff");
+        this.coolMultiplier = config.getDouble("Temperature.Environment.BiomeTemperature.CoolMultiplier");
+        this.coldCutoff = config.getDouble("Temperature.Environment.BiomeTemperature.ColdCutoff");
+        this.coldMultiplier = config.getDouble("Temperature.Environment.BiomeTemperature.ColdMultiplier");
+        this.frigidMultiplier = config.getDouble("Temperature.Environment.BiomeTemperature.FrigidMultiplier");
+        this.daylightMultiplier = config.getDouble("Temperature.Environment.DaylightCycleMultiplier");
+        this.submergedWater = Modifier.of(config, "Temperature.Environment.SubmergedWater");
+        this.submergedLava = Modifier.of(config, "Temperature.Environment.SubmergedLava");
+        this.storming = Modifier.of(config, "Temperature.Environment.Storming");
+        this.housed = Modifier.of(config, "Temperature.Environment.Housed");
+        this.burning = Modifier.of(config, "Temperature.Environment.Burning");
+
+        ConfigurationSection armorSection = config.getConfigurationSection("Temperature.Armor");
+        if (armorSection != null) {
+            for (String key : armorSection.getKeys(false)) {
+                Modifier modifier = Modifier.of(config, "Temperature.Armor." + key);
+
+                if (modifier != null) {
+                    armor.put(key, modifier);
+                }
+            }
+        }
+
+        this.seasonsDefaultTemp = rs.getDefaultTemperature();
+        this.seasonsColdMultiplier = rs.getColdMultiplier();
+        this.seasonsHotMultiplier = rs.getHotMultiplier();
+    }
+
+    /**
+     * Computes a player's next temperature
+     * @param input What was gathered about the player
+     * @return The player's next temperature and the temperature they are moving towards
+     */
+    @Nonnull
+    public Result compute(@Nonnull Input input) {
+        double temp = input.temp();
+        double equilibriumTemp = input.equilibriumTemp();
+
+        if (input.seasonsTemp() != null) {
+            int seasonsTemp = input.seasonsTemp();
+            temp = (seasonsTemp - seasonsDefaultTemp) * (seasonsTemp > seasonsDefaultTemp ? seasonsHotMultiplier : seasonsColdMultiplier) + MAXIMUM_TEMPERATURE / 2;
+        }
+        else {
+            double daylightChange = input.overworld() ? Math.sin(2 * Math.PI / 24000 * input.time() - 3500) * daylightMultiplier : 0D;
+            Sums sums = addModifiers(input, input.biomeChange() + daylightChange + input.changeEnv(), input.regulateEnv());
+            double change = sums.change();
+            double regulate = sums.regulate();
+
+            double normalTemp = NEUTRAL_TEMPERATURE + change;
+            double regulatedTemp = temp;
+
+            if (normalTemp != NEUTRAL_TEMPERATURE) {
+                if (normalTemp > NEUTRAL_TEMPERATURE) {
+                    regulatedTemp = Math.max(normalTemp - regulate, NEUTRAL_TEMPERATURE);
+                }
+                else {
+                    regulatedTemp = Math.min(normalTemp + regulate, NEUTRAL_TEMPERATURE);
+                }
+            }
+
+            equilibriumTemp = regulatedTemp;
+
+            if (Math.abs(temp - regulatedTemp) < maxChange) {
+                temp = regulatedTemp;
+            }
+            else {
+                temp = regulatedTemp > temp ? temp + maxChange : temp - maxChange;
+            }
+        }
+
+        if (temp != NEUTRAL_TEMPERATURE) {
+            if (temp < NEUTRAL_TEMPERATURE && input.coldImmune()) {
+                temp = NEUTRAL_TEMPERATURE;
+            }
+            if (temp > NEUTRAL_TEMPERATURE && input.hotImmune()) {
+                temp = NEUTRAL_TEMPERATURE;
+            }
+        }
+        return new Result(temp, equilibriumTemp);
+    }
+
+    /**
+     * Checks whether computing the temperature again from the same input would give the same result at any time of
+     * day, which is the case once the player reached equilibrium and the daylight cycle can't move it
+     * @param input The input the result was computed from
+     * @param result The computed result
+     * @return True if the result can be reused while the rest of the input stays the same
+     */
+    public boolean isStable(@Nonnull Input input, @Nonnull Result result) {
+        if (input.seasonsTemp() != null) {
+            return false;
+        }
+
+        if (result.temp() != input.temp() || result.temp() != result.equilibriumTemp()) {
+            return false;
+        }
+
+        if (!input.overworld() || daylightMultiplier == 0D) {
+            return true;
+        }
+
+        // the regulation has to pull the equilibrium back to neutral for every value the daylight cycle can add
+        if (result.temp() != NEUTRAL_TEMPERATURE) {
+            return false;
+        }
+
+        if (input.coldImmune() && input.hotImmune()) {
+            return true;
+        }
+
+        Sums sums = addModifiers(input, input.biomeChange() + input.changeEnv(), input.regulateEnv());
+        double amplitude = Math.abs(daylightMultiplier);
+
+        return sums.change() + amplitude - sums.regulate() < -STABILITY_MARGIN && sums.change() - amplitude + sums.regulate() > STABILITY_MARGIN;
+    }
+
+    /**
+     * Checks if the equilibrium the player moves towards can only change when the rest of the input does, which is
+     * the case unless the daylight cycle or RealisticSeasons moves it. The next input then only differs in the
+     * temperature, so the player's whole way to the equilibrium is known without reading the world again
+     * @param input The input the last result was computed from
+     * @return True if the input can be reused with just the temperature updated while the rest stays the same
+     */
+    public boolean isPredictable(@Nonnull Input input) {
+        return input.seasonsTemp() == null && (!input.overworld() || daylightMultiplier == 0D);
+    }
+
+    @Nonnull
+    private Sums addModifiers(@Nonnull Input input, double change, double regulate) {
+        Modifier[] conditions = {
+                input.inWater() ? submergedWater : null,
+                input.inLava() ? submergedLava : null,
+                input.exposedToSky() ? (input.storming() ? storming : null) : housed,
+                input.burning() ? burning : null
+        };
+
+        for (Modifier modifier : conditions) {
+            if (modifier != null) {
+                if (modifier.regulatory()) {
+                    regulate += modifier.value();
+                }
+                else {
+                    change += modifier.value();
+                }
+            }
+        }
+
+        for (String key : input.armor()) {
+            Modifier modifier = armor.get(key);
+
+            if (modifier != null) {
+                if (modifier.regulatory()) {
+                    regulate += modifier.value();
+                }
+                else {
+                    change += modifier.value();
+                }
+            }
+        }
+        return new Sums(change, regulate);
+    }
+
+    /**
+     * Multiplies a vanilla biome temperature by the multiplier of its range
+     * @param biomeTemp The vanilla biome temperature
+     * @return The biome's effect on a player's temperature
+     */
+    public double getBiomeTemperature(double biomeTemp) {
+        if (biomeTemp > hotCutoff) {
+            return biomeTemp * hotMultiplier;
+        }
+        // less than hot cutoff
+        if (biomeTemp >= warmCutoff) {
+            return biomeTemp * warmMultiplier;
+        }
+        // less than warm cutoff
+        if (biomeTemp >= moderateCutoff) {
+            return biomeTemp * moderateMultiplier;
+        }
+        // less than moderate cutoff
+        if (biomeTemp >= coolCutoff) {
+            return biomeTemp * coolMultiplier;
+        }
+        // less than cool cutoff
+        if (biomeTemp >= coldCutoff) {
+            return biomeTemp * coldMultiplier;
+        }
+        return biomeTemp * frigidMultiplier;
+    }
+
+    /**
+     * A condition or armor piece that changes a player's temperature
+     * @param value How much the temperature changes
+     * @param regulatory Whether the temperature is regulated instead of changed
+     */
+    public record Modifier(double value, boolean regulatory) {
+
+        @Nullable
+        private static Modifier of(@Nonnull FileConfiguration config, @Nonnull String path) {
+            if (config.contains(path + ".Enabled") && !config.getBoolean(path + ".Enabled")) {
+                return null;
+            }
+            return new Modifier(config.getDouble(path + ".Value"), config.getBoolean(path + ".IsRegulatory"));
+        }
+    }
+
+    /**
+     * Everything the model needs to know about a player, gathered on the main thread
+     * @param temp The player's current temperature
+     * @param equilibriumTemp The temperature the player was last moving towards
+     * @param seasonsTemp The RealisticSeasons temperature or null if it isn't used for the player
+     * @param biomeChange The biome temperature at the player's location, already multiplied by its range's multiplier
+     * @param overworld Whether the player is in a world with a daylight cycle
+     * @param time The world's time
+     * @param inWater Whether the player is in water
+     * @param inLava Whether the player is in lava
+     * @param exposedToSky Whether the player can see the sky
+     * @param storming Whether the player's world has a storm
+     * @param burning Whether the player is on fire
+     * @param armor The armor config keys of the armor the player is wearing
+     * @param changeEnv The sum of the changing blocks around the player
+     * @param regulateEnv The sum of the regulating blocks around the player
+     * @param coldImmune Whether the player is immune to the cold
+     * @param hotImmune Whether the player is immune to the heat
+     */
+    public record Input(double temp, double equilibriumTemp, @Nullable Integer seasonsTemp, double biomeChange,
+                        boolean overworld, long time, boolean inWater, boolean inLava, boolean exposedToSky,
+                        boolean storming, boolean burning, @Nonnull List<String> armor, double changeEnv,
+                        double regulateEnv, boolean coldImmune, boolean hotImmune) {
+
+        /**
+         * Copies the input with a new temperature and equilibrium
+         * @param temp The player's current temperature
+         * @param equilibriumTemp The temperature the player was last moving towards
+         * @return The copied input
+         */
+        @Nonnull
+        public Input withTemp(double temp, double equilibriumTemp) {
+            return new Input(temp, equilibriumTemp, seasonsTemp, biomeChange, overworld, time, inWater, inLava, exposedToSky,
+                    storming, burning, armor, changeEnv, regulateEnv, coldImmune, hotImmune);
+        }
+    }
+
+    /**
+     * The outcome of one temperature calculation
+     * @param temp The player's new temperature
+     * @param equilibriumTemp The temperature the player is moving towards
+     */
+    public record Result(double temp, double equilibriumTemp) {}
+
+    private record Sums(double change, double regulate) {}
+}
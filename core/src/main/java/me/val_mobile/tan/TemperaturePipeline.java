@@ -0,0 +1,106 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import me.val_mobile.rsv.RSVPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Calculates every player's temperature in three stages instead of one task per player. The inputs of all players are
+ * gathered on the main thread, the temperature model runs for all of them in parallel on the common ForkJoin pool and
+ * the results are applied back on the main thread on a later tick
+ */
+public class TemperaturePipeline extends BukkitRunnable {
+
+    private final TanModule module;
+    private final RSVPlugin plugin;
+    private final int tickPeriod;
+    private int ticks = 0;
+    private CompletableFuture<List<Evaluation>> inFlight;
+
+    public TemperaturePipeline(TanModule module, RSVPlugin plugin) {
+        this.module = module;
+        this.plugin = plugin;
+        this.tickPeriod = Math.max(1, module.getUserConfig().getConfig().getInt("Temperature.CalculateTickPeriod"));
+    }
+
+    @Override
+    public void run() {
+        if (inFlight != null) {
+            if (!inFlight.isDone()) {
+                return;
+            }
+            apply();
+        }
+
+        if (++ticks < tickPeriod) {
+            return;
+        }
+        ticks = 0;
+
+        List<Evaluation> evaluations = new ArrayList<>();
+
+        // gathering can stop a task, which removes it from the map
+        for (TemperatureCalculateTask task : new ArrayList<>(TemperatureCalculateTask.getTasks().values())) {
+            TemperatureModel.Input input = task.gather();
+
+            if (input != null) {
+                evaluations.add(new Evaluation(task, input, task.getCachedResult(input)));
+            }
+        }
+
+        if (evaluations.isEmpty()) {
+            return;
+        }
+
+        TemperatureModel model = module.getTemperatureModel();
+
+        inFlight = CompletableFuture.supplyAsync(() -> evaluations.parallelStream()
+                .map(evaluation -> evaluation.result() != null ? evaluation : new Evaluation(evaluation.task(), evaluation.input(), model.compute(evaluation.input())))
+                .toList(), ForkJoinPool.commonPool());
+    }
+
+    private void apply() {
+        try {
+            for (Evaluation evaluation : inFlight.join()) {
+                evaluation.task().apply(evaluation.input(), evaluation.result());
+            }
+        }
+        catch (CompletionException e) {
+            e.printStackTrace();
+        }
+        inFlight = null;
+    }
+
+    public void start() {
+        this.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    public void stop() {
+        // the players were already saved, a result that is still computing is dropped
+        cancel();
+        inFlight = null;
+    }
+
+    private record Evaluation(TemperatureCalculateTask task, TemperatureModel.Input input, TemperatureModel.Result result) {}
+}
@@ -20,7 +20,6 @@ import me.val_mobile.data.RSVPlayer;
 import me.val_mobile.rsv.RSVPlugin;
 import me.val_mobile.utils.RSVTask;
 import me.val_mobile.utils.Utils;
-import org.bukkit.Bukkit;
 import org.bukkit.Difficulty;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
@@ -47,9 +46,12 @@ public class ThirstCalculateTask extends BukkitRunnable implements RSVTask {
     private int saturationLvl;
     private int tickTimer;
     private double exhaustionLvl;
+    // exhaustion added by events since the last run, already multiplied by the parasite multiplier
+    private double pendingExhaustion;
     private final int tickPeriod;
     private boolean parasitesActive = false;
     private final double peMultiplier;
+    private final boolean peEnabled;
     private final double sprintingIncrease;
     private final double swimmingIncrease;
     private final double passiveIncrease;
@@ -73,6 +75,7 @@ public class ThirstCalculateTask extends BukkitRunnable implements RSVTask {
         this.tickTimer = player.getTanDataModule().getThirstTickTimer();
         this.allowedWorlds = module.getAllowedWorlds();
         this.peMultiplier = config.getDouble("Thirst.Parasites.MultiplyExhaustionRates.Value");
+        this.peEnabled = config.getBoolean("Thirst.Parasites.MultiplyExhaustionRates.Enabled");
         this.sprintingIncrease = config.getDouble("Thirst.ExhaustionLevelIncrease.Sprinting");
         this.swimmingIncrease = config.getDouble("Thirst.ExhaustionLevelIncrease.Swimming");
         this.passiveIncrease = config.getDouble("Thirst.ExhaustionLevelIncrease.PassiveDecay");
@@ -112,7 +115,8 @@ public class ThirstCalculateTask extends BukkitRunnable implements RSVTask {
             addition += passiveIncrease;
             addition *= tickPeriod * (parasitesActive ? peMultiplier : 1);
 
-            exhaustionLvl = Utils.clamp(exhaustionLvl + addition, 0, 4);
+            exhaustionLvl = Utils.clamp(exhaustionLvl + pendingExhaustion + addition, 0, 4);
+            pendingExhaustion = 0;
 
             if (Utils.doublesEquals(exhaustionLvl, 4) && tickTimer >= 80) {
                 exhaustionLvl = 0;
@@ -134,17 +138,11 @@ public class ThirstCalculateTask extends BukkitRunnable implements RSVTask {
                 thirstLvl = Math.max(MAXIMUM_THIRST, thirstLvl);
             }
             else {
-                if (config.getBoolean("Thirst.Dehydration.Enabled")) {
-                    if (thirstLvl <= config.getDouble("Thirst.Dehydration.Thirst")) {
-                        if (!DehydrationTask.hasTask(id)) {
-                            new DehydrationTask(module, plugin, this.player).start();
-                        }
-                    }
-                }
+                module.getStatusEffects().update(player, StatusEffects.Stat.THIRST, thirstLvl);
             }
 
             if (!Utils.doublesEquals(currentLvl, thirstLvl)) {
-                Bukkit.getServer().getPluginManager().callEvent(new ThirstChangeEvent(player, currentLvl, thirstLvl));
+                module.getStatChangeDispatcher().thirstChanged(player, currentLvl, thirstLvl);
             }
 
             thirstManager.setThirst(player, thirstLvl);
@@ -170,7 +168,7 @@ public class ThirstCalculateTask extends BukkitRunnable implements RSVTask {
     }
 
     public double getExhaustionLvl() {
-        return exhaustionLvl;
+        return exhaustionLvl + pendingExhaustion;
     }
 
     public int getTickTimer() {
@@ -183,6 +181,16 @@ public class ThirstCalculateTask extends BukkitRunnable implements RSVTask {
 
     public void setExhaustionLvl(double exhaustionLvl) {
         this.exhaustionLvl = exhaustionLvl;
+        this.pendingExhaustion = 0;
+    }
+
+    /**
+     * Adds exhaustion from an event, which is applied on the next run instead of being written to the player's data
+     * right away
+     * @param exhaustion The exhaustion to add before the parasite multiplier
+     */
+    public void accumulateExhaustion(double exhaustion) {
+        pendingExhaustion += exhaustion * (parasitesActive && peEnabled ? peMultiplier : 1);
     }
 
     public void setThirstLvl(int thirstLvl) {
@@ -210,11 +218,13 @@ public class ThirstCalculateTask extends BukkitRunnable implements RSVTask {
     @Override
     public void stop() {
         thirstManager.setThirst(player.getPlayer(), thirstLvl);
-        thirstManager.setExhaustion(player.getPlayer(), exhaustionLvl);
+        thirstManager.setExhaustion(player.getPlayer(), getExhaustionLvl());
         thirstManager.setSaturation(player.getPlayer(), saturationLvl);
         thirstManager.setTickTimer(player.getPlayer(), tickTimer);
 
         tasks.remove(id);
+        thirstManager.forgetTask(this);
+        module.getStatChangeDispatcher().forget(id);
         cancel();
     }
 
@@ -22,12 +22,15 @@ import me.val_mobile.utils.Utils;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public class ThirstManager {
 
     private final TanModule module;
     private final FileConfiguration config;
+    private Player cachedPlayer;
+    private ThirstCalculateTask cachedTask;
 
     public ThirstManager(TanModule module) {
         this.module = module;
@@ -145,6 +148,44 @@ public class ThirstManager {
         setExhaustion(player, getExhaustion(player) + exhaustion);
     }
 
+    /**
+     * Adds exhaustion for events that fire many times per second, which the player's thirst task applies on its
+     * next run
+     * @param player The player
+     * @param exhaustion The exhaustion to add
+     */
+    public void accumulateExhaustion(@Nullable Player player, double exhaustion) {
+        if (player == null) {
+            return;
+        }
+
+        // movement and block events come in bursts from the same player, so their task is kept at hand
+        ThirstCalculateTask task = cachedTask;
+        if (player != cachedPlayer || task == null) {
+            task = ThirstCalculateTask.getTasks().get(player.getUniqueId());
+            cachedPlayer = player;
+            cachedTask = task;
+        }
+
+        if (task != null) {
+            task.accumulateExhaustion(exhaustion);
+        }
+        else {
+            addExhaustion(player, exhaustion);
+        }
+    }
+
+    /**
+     * Drops a stopped thirst task from the cache used by {@link #accumulateExhaustion(Player, double)}
+     * @param task The stopped task
+     */
+    public void forgetTask(@Nonnull ThirstCalculateTask task) {
+        if (cachedTask == task) {
+            cachedPlayer = null;
+            cachedTask = null;
+        }
+    }
+
     public void setTickTimer(@Nullable Player player, int tickTimer) {
         if (isThirstEnabled(player)) {
             tickTimer = Utils.clamp(tickTimer, 0, 80);
@@ -0,0 +1,116 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.tan;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches what kind of water a water block is, since players drink from the same few sources over and over. A
+ * chunk's classifications are dropped when a block in or next to it changes and when it unloads. Must only be used
+ * on the main thread
+ */
+public class WaterSourceCache extends ChunkCache<Map<Integer, WaterSourceCache.Source>> {
+
+    // the cube of blocks checked for cave air, relative to the water source
+    private static final int SCAN_MIN = -3;
+    private static final int SCAN_MAX = 1;
+
+    public enum Source {
+        CAVE("CaveWater"),
+        RIVER("RiverWater"),
+        SEA("SeaWater"),
+        REGULAR("RegularWater");
+
+        private final String configName;
+
+        Source(String configName) {
+            this.configName = configName;
+        }
+
+        /**
+         * Gets the name of this kind of water in the config
+         * @return The name of the config section
+         */
+        @Nonnull
+        public String getConfigName() {
+            return configName;
+        }
+    }
+
+    /**
+     * Gets what kind of water a block is, classifying it if it isn't cached yet
+     * @param block The water block
+     * @return The kind of water
+     */
+    @Nonnull
+    public Source getSource(@Nonnull Block block) {
+        Map<Integer, Source> sources = getOrCreateChunk(block.getWorld(), block.getX() >> 4, block.getZ() >> 4, HashMap::new);
+
+        return sources.computeIfAbsent(getIndex(block.getX(), block.getY(), block.getZ()), index -> classify(block));
+    }
+
+    /**
+     * Drops the classifications of every chunk whose water sources could have scanned a block
+     * @param block The block that changed
+     */
+    public void invalidate(@Nonnull Block block) {
+        // a source scans the blocks from SCAN_MIN to SCAN_MAX away, so it is at most that far in the other direction
+        removeChunks(block.getWorld(), (block.getX() - SCAN_MAX) >> 4, (block.getZ() - SCAN_MAX) >> 4, (block.getX() - SCAN_MIN) >> 4, (block.getZ() - SCAN_MIN) >> 4);
+    }
+
+    @Nonnull
+    private static Source classify(@Nonnull Block block) {
+        World world = block.getWorld();
+        int airAmount = 0;
+        int caveAirAmount = 0;
+
+        for (int x = SCAN_MIN; x <= SCAN_MAX; x++) {
+            for (int y = SCAN_MIN; y <= SCAN_MAX; y++) {
+                for (int z = SCAN_MIN; z <= SCAN_MAX; z++) {
+                    Material type = world.getBlockAt(block.getX() + x, block.getY() + y, block.getZ() + z).getType();
+
+                    if (type == Material.AIR) {
+                        airAmount++;
+                    }
+                    else if (type == Material.CAVE_AIR) {
+                        caveAirAmount++;
+                    }
+                }
+            }
+        }
+
+        if (caveAirAmount > airAmount) {
+            return Source.CAVE;
+        }
+
+        return switch (block.getBiome()) {
+            case RIVER, FROZEN_RIVER -> Source.RIVER;
+            case OCEAN, COLD_OCEAN, DEEP_LUKEWARM_OCEAN, LUKEWARM_OCEAN, DEEP_OCEAN, DEEP_COLD_OCEAN, DEEP_FROZEN_OCEAN, FROZEN_OCEAN, DEEP_WARM_OCEAN, WARM_OCEAN -> Source.SEA;
+            default -> Source.REGULAR;
+        };
+    }
+
+    private static int getIndex(int x, int y, int z) {
+        return (y << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
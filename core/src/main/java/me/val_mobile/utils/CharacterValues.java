@@ -29,139 +29,381 @@ import java.util.Map;
 
 public class CharacterValues {
 
-    private final FileConfiguration tanConfig;
+    private static final int MAX_TEMPERATURE = 25;
+    private static final int MAX_THIRST = 20;
+    private static final int EMPTY = 0;
+    private static final int HALF = 1;
+    private static final int FULL = 2;
+
+    // the glyphs are shared by every player and rebuilt when the config is reloaded, placeholders read them from other threads
+    private static volatile Glyphs glyphs;
+
+    private final RSVModule tanModule;
     private final FileConfiguration ifConfig;
 
     public CharacterValues() {
         RSVModule tanModule = RSVModule.getModule(TanModule.NAME);
         RSVModule ifModule = RSVModule.getModule(IceFireModule.NAME);
 
-        this.tanConfig = tanModule.isGloballyEnabled() ? tanModule.getUserConfig().getConfig() : null;
+        this.tanModule = tanModule.isGloballyEnabled() ? tanModule : null;
         this.ifConfig = ifModule.isGloballyEnabled() ? ifModule.getUserConfig().getConfig() : null;
     }
 
     @Nonnull
     public String getTemperatureOnlyActionbar(@Nullable Player player, @Nonnegative int temperature) {
-        String s = tanConfig.getString("CharacterOverrides.TemperatureActionbar");
-        return Utils.translateMsg(s, player, Map.of("TEMP", getTemperature(player, temperature)));
+        Glyphs glyphs = getGlyphs();
+
+        if (glyphs.temperatureActionbars != null && isTemperature(temperature)) {
+            return glyphs.temperatureActionbars[temperature];
+        }
+        return Utils.translateMsg(glyphs.temperatureTemplate, player, Map.of("TEMP", getTemperature(player, temperature)));
     }
 
     @Nonnull
     public String getThirstOnlyActionbar(@Nullable Player player, @Nonnegative int thirst, boolean isUnderwater, boolean parasitesActive) {
-        String s = tanConfig.getString("CharacterOverrides.ThirstActionbar");
-        return Utils.translateMsg(s, player, Map.of("THIRST", getThirst(player, thirst, isUnderwater, parasitesActive)));
+        Glyphs glyphs = getGlyphs();
+        int state = getState(isUnderwater, parasitesActive);
+
+        if (glyphs.thirstActionbars[state] != null) {
+            return glyphs.thirstActionbars[state][clampThirst(thirst)];
+        }
+        return Utils.translateMsg(glyphs.thirstTemplate, player, Map.of("THIRST", getThirst(player, thirst, isUnderwater, parasitesActive)));
     }
 
     @Nonnull
     public String getTemperatureThirstActionbar(@Nullable Player player, @Nonnegative int temperature, @Nonnegative int thirst, boolean isUnderwater, boolean parasitesActive) {
-        String s = tanConfig.getString("CharacterOverrides.TemperatureThirstActionbar");
-        return Utils.translateMsg(s, player, Map.of("TEMP", getTemperature(player, temperature), "THIRST", getThirst(player, thirst, isUnderwater, parasitesActive)));
+        Glyphs glyphs = getGlyphs();
+        int state = getState(isUnderwater, parasitesActive);
+
+        if (glyphs.temperatureThirstActionbars[state] != null && isTemperature(temperature)) {
+            return glyphs.temperatureThirstActionbars[state][temperature][clampThirst(thirst)];
+        }
+        return Utils.translateMsg(glyphs.temperatureThirstTemplate, player, Map.of("TEMP", getTemperature(player, temperature), "THIRST", getThirst(player, thirst, isUnderwater, parasitesActive)));
     }
 
     @Nonnull
     public String getThirst(@Nullable Player player, @Nonnegative int thirst, boolean isUnderwater, boolean parasitesActive) {
+        Glyphs glyphs = getGlyphs();
+        int state = getState(isUnderwater, parasitesActive);
 
-        final String EMPTY_THIRST_DROP = Utils.translateMsg(isUnderwater ? tanConfig.getString("CharacterOverrides.UnderwaterEmptyThirstDrop") : tanConfig.getString("CharacterOverrides.AboveWaterEmptyThirstDrop"), player, null);
-        final String HALF_THIRST_DROP;
-        final String FULL_THIRST_DROP;
-        if (parasitesActive) {
-            HALF_THIRST_DROP = Utils.translateMsg(isUnderwater ? tanConfig.getString("CharacterOverrides.ParasitesUnderwaterHalfThirstDrop") : tanConfig.getString("CharacterOverrides.ParasitesAboveWaterHalfThirstDrop"), player, null);
-            FULL_THIRST_DROP =  Utils.translateMsg(isUnderwater ? tanConfig.getString("CharacterOverrides.ParasitesUnderwaterFullThirstDrop"): tanConfig.getString("CharacterOverrides.ParasitesAboveWaterFullThirstDrop"), player, null);
-        }
-        else {
-            HALF_THIRST_DROP = Utils.translateMsg(isUnderwater ? tanConfig.getString("CharacterOverrides.UnderwaterHalfThirstDrop") : tanConfig.getString("CharacterOverrides.AboveWaterHalfThirstDrop"), player, null);
-            FULL_THIRST_DROP = Utils.translateMsg(isUnderwater ? tanConfig.getString("CharacterOverrides.UnderwaterFullThirstDrop") : tanConfig.getString("CharacterOverrides.AboveWaterFullThirstDrop"), player, null);
-        }
-
-
-        thirst = (thirst < 0) ? 0 : Math.min(thirst, 20);
-
-        StringBuilder s = new StringBuilder();
-
-        int numHalf;
-        int numEmpty;
-
-        if (thirst % 2 == 0) {
-            numHalf = 0;
-            numEmpty = (20 - thirst) / 2;
-        }
-        else {
-            numHalf = 1;
-            numEmpty = (19 - thirst) / 2;
-        }
-
-        s.append(FULL_THIRST_DROP.repeat((20 - numHalf - numEmpty * 2) / 2));
-
-        if (numHalf == 1) {
-            s.insert(0, HALF_THIRST_DROP);
-        }
-
-        for (int i = 0; i < numEmpty; i++) {
-            s.insert(0, EMPTY_THIRST_DROP);
+        if (glyphs.thirstBars[state] != null) {
+            return glyphs.thirstBars[state][clampThirst(thirst)];
         }
 
-        return s.toString();
+        Glyph[] drops = glyphs.drops[state];
+        return buildThirstBar(drops[EMPTY].get(player), drops[HALF].get(player), drops[FULL].get(player), thirst);
     }
 
     @Nonnull
     public String getThirstDrop(@Nullable Player player, int i) {
-        return switch (i) {
-            case 0 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.AboveWaterEmptyThirstDrop"), player, null);
-            case 1 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.AboveWaterHalfThirstDrop"), player, null);
-            case 2 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.AboveWaterFullThirstDrop"), player, null);
-            default -> "";
-        };
+        Glyph[] drops = getGlyphs().drops[getState(false, false)];
+        return i >= EMPTY && i <= FULL ? drops[i].get(player) : "";
     }
 
     @Nonnull
     public String getIceVignette(@Nullable Player player, int temperature) {
-        return switch (temperature) {
-            case 0 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.FreezingView"), player, null);
-            case 1 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.IceVignette5"), player, null);
-            case 2 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.IceVignette4"), player, null);
-            case 3 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.IceVignette3"), player, null);
-            case 4 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.IceVignette2"), player, null);
-            case 5 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.IceVignette1"), player, null);
-            default -> "";
-        };
+        Glyph[] vignettes = getGlyphs().iceVignettes;
+        return temperature >= 0 && temperature < vignettes.length ? vignettes[temperature].get(player) : "";
     }
 
     @Nonnull
     public String getFireVignette(@Nullable Player player, int temperature) {
-        return switch (temperature) {
-            case 20 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.FireVignette1"), player, null);
-            case 21 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.FireVignette2"), player, null);
-            case 22 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.FireVignette3"), player, null);
-            case 23 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.FireVignette4"), player, null);
-            case 24 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.FireVignette5"), player, null);
-            case 25 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.BurningView"), player, null);
-            default -> "";
-        };
+        Glyph[] vignettes = getGlyphs().fireVignettes;
+        int i = temperature - (MAX_TEMPERATURE - vignettes.length + 1);
+        return i >= 0 && i < vignettes.length ? vignettes[i].get(player) : "";
     }
 
     @Nonnull
     public String getThirstVignette(@Nullable Player player, int thirst) {
-        return switch (thirst) {
-            case 0 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.DehydratedView"), player, null);
-            case 1 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.ThirstVignette5"), player, null);
-            case 2 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.ThirstVignette4"), player, null);
-            case 3 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.ThirstVignette3"), player, null);
-            case 4 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.ThirstVignette2"), player, null);
-            case 5 -> Utils.translateMsg(tanConfig.getString("CharacterOverrides.ThirstVignette1"), player, null);
-            default -> "";
-        };
+        Glyph[] vignettes = getGlyphs().thirstVignettes;
+        return thirst >= 0 && thirst < vignettes.length ? vignettes[thirst].get(player) : "";
     }
 
     @Nonnull
     public String getTemperature(@Nullable Player player, int i) {
-        if (i < 0 || i > 25) {
+        if (!isTemperature(i)) {
             return "";
         }
-        return Utils.translateMsg(tanConfig.getString("CharacterOverrides.Temperature" + i), player, null);
+        return getGlyphs().temperatures[i].get(player);
+    }
+
+    /**
+     * Checks if the temperature characters are the same for every player
+     * @return False if any of them contains a player placeholder
+     */
+    public boolean isTemperatureStatic() {
+        return getGlyphs().temperaturesStatic;
+    }
+
+    /**
+     * Checks if the thirst drops are the same for every player
+     * @return False if any of them contains a player placeholder
+     */
+    public boolean isThirstStatic() {
+        return getGlyphs().dropsStatic;
+    }
+
+    /**
+     * Checks if the ice vignettes are the same for every player
+     * @return False if any of them contains a player placeholder
+     */
+    public boolean isIceVignetteStatic() {
+        return getGlyphs().iceVignettesStatic;
+    }
+
+    /**
+     * Checks if the fire vignettes are the same for every player
+     * @return False if any of them contains a player placeholder
+     */
+    public boolean isFireVignetteStatic() {
+        return getGlyphs().fireVignettesStatic;
+    }
+
+    /**
+     * Checks if the thirst vignettes are the same for every player
+     * @return False if any of them contains a player placeholder
+     */
+    public boolean isThirstVignetteStatic() {
+        return getGlyphs().thirstVignettesStatic;
+    }
+
+    /**
+     * Checks if the combined temperature and thirst actionbar is the same for every player
+     * @return False if its template or any of its characters contains a player placeholder
+     */
+    public boolean isTemperatureThirstActionbarStatic() {
+        Glyphs glyphs = getGlyphs();
+        return glyphs.temperaturesStatic && glyphs.dropsStatic && Glyphs.isStatic(glyphs.temperatureThirstTemplate);
+    }
+
+    /**
+     * Checks if the temperature only actionbar is the same for every player
+     * @return False if its template or any of its characters contains a player placeholder
+     */
+    public boolean isTemperatureOnlyActionbarStatic() {
+        return getGlyphs().temperatureActionbars != null;
+    }
+
+    /**
+     * Checks if the thirst only actionbar is the same for every player
+     * @return False if its template or any of its characters contains a player placeholder
+     */
+    public boolean isThirstOnlyActionbarStatic() {
+        Glyphs glyphs = getGlyphs();
+        return glyphs.dropsStatic && Glyphs.isStatic(glyphs.thirstTemplate);
+    }
+
+    /**
+     * Checks if the siren view is the same for every player
+     * @return False if it contains a player placeholder
+     */
+    public boolean isSirenViewStatic() {
+        return Glyphs.isStatic(ifConfig.getString("Siren.ChangeScreen.Character", ""));
     }
 
     @Nonnull
     public String getSirenView(@Nullable Player player) {
         return Utils.translateMsg(ifConfig.getString("Siren.ChangeScreen.Character"), player, null);
     }
+
+    @Nonnull
+    private Glyphs getGlyphs() {
+        FileConfiguration config = tanModule.getUserConfig().getConfig();
+        Glyphs glyphs = CharacterValues.glyphs;
+
+        // two threads may both rebuild after a reload, either copy is built from the same config
+        if (glyphs == null || glyphs.config != config) {
+            glyphs = new Glyphs(config);
+            CharacterValues.glyphs = glyphs;
+        }
+        return glyphs;
+    }
+
+    private static int getState(boolean isUnderwater, boolean parasitesActive) {
+        return (isUnderwater ? 1 : 0) | (parasitesActive ? 2 : 0);
+    }
+
+    private static boolean isTemperature(int temperature) {
+        return temperature >= 0 && temperature <= MAX_TEMPERATURE;
+    }
+
+    private static int clampThirst(int thirst) {
+        return (thirst < 0) ? 0 : Math.min(thirst, MAX_THIRST);
+    }
+
+    @Nonnull
+    private static String buildThirstBar(@Nonnull String emptyDrop, @Nonnull String halfDrop, @Nonnull String fullDrop, int thirst) {
+        thirst = clampThirst(thirst);
+
+        int numHalf;
+        int numEmpty;
+
+        if (thirst % 2 == 0) {
+            numHalf = 0;
+            numEmpty = (MAX_THIRST - thirst) / 2;
+        }
+        else {
+            numHalf = 1;
+            numEmpty = (MAX_THIRST - 1 - thirst) / 2;
+        }
+
+        return emptyDrop.repeat(numEmpty) + halfDrop.repeat(numHalf) + fullDrop.repeat((MAX_THIRST - numHalf - numEmpty * 2) / 2);
+    }
+
+    /**
+     * A configured character, translated once unless it contains placeholders that depend on the player
+     * @param raw The text from the config
+     * @param translated The translated text or null if it must be translated for every player
+     */
+    private record Glyph(@Nonnull String raw, @Nullable String translated) {
+
+        @Nonnull
+        static Glyph of(@Nullable String raw) {
+            raw = raw == null ? "" : raw;
+            return new Glyph(raw, raw.indexOf('%') == -1 ? Utils.translateMsg(raw, null, null) : null);
+        }
+
+        @Nonnull
+        String get(@Nullable Player player) {
+            return translated == null ? Utils.translateMsg(raw, player, null) : translated;
+        }
+    }
+
+    /**
+     * Every character and actionbar the hud can show, precomputed for every temperature, thirst level, underwater
+     * and parasite state. The tables of anything that contains player placeholders are left null
+     */
+    private static class Glyphs {
+
+        private final FileConfiguration config;
+        private final Glyph[] temperatures = new Glyph[MAX_TEMPERATURE + 1];
+        // indexed by state, then EMPTY, HALF and FULL
+        private final Glyph[][] drops = new Glyph[4][];
+        private final Glyph[] iceVignettes;
+        private final Glyph[] fireVignettes;
+        private final Glyph[] thirstVignettes;
+        private final String temperatureTemplate;
+        private final String thirstTemplate;
+        private final String temperatureThirstTemplate;
+
+        private final String[][] thirstBars = new String[4][];
+        private final String[] temperatureActionbars;
+        private final String[][] thirstActionbars = new String[4][];
+        private final String[][][] temperatureThirstActionbars = new String[4][][];
+
+        private final boolean temperaturesStatic;
+        private final boolean dropsStatic;
+        private final boolean iceVignettesStatic;
+        private final boolean fireVignettesStatic;
+        private final boolean thirstVignettesStatic;
+
+        private Glyphs(@Nonnull FileConfiguration config) {
+            this.config = config;
+
+            for (int i = 0; i <= MAX_TEMPERATURE; i++) {
+                temperatures[i] = Glyph.of(config.getString("CharacterOverrides.Temperature" + i));
+            }
+            temperaturesStatic = isStatic(temperatures);
+
+            drops[getState(false, false)] = readDrops(config, "AboveWaterEmptyThirstDrop", "AboveWaterHalfThirstDrop", "AboveWaterFullThirstDrop");
+            drops[getState(true, false)] = readDrops(config, "UnderwaterEmptyThirstDrop", "UnderwaterHalfThirstDrop", "UnderwaterFullThirstDrop");
+            drops[getState(false, true)] = readDrops(config, "AboveWaterEmptyThirstDrop", "ParasitesAboveWaterHalfThirstDrop", "ParasitesAboveWaterFullThirstDrop");
+            drops[getState(true, true)] = readDrops(config, "UnderwaterEmptyThirstDrop", "ParasitesUnderwaterHalfThirstDrop", "ParasitesUnderwaterFullThirstDrop");
+
+            iceVignettes = readGlyphs(config, "FreezingView", "IceVignette5", "IceVignette4", "IceVignette3", "IceVignette2", "IceVignette1");
+            fireVignettes = readGlyphs(config, "FireVignette1", "FireVignette2", "FireVignette3", "FireVignette4", "FireVignette5", "BurningView");
+            thirstVignettes = readGlyphs(config, "DehydratedView", "ThirstVignette5", "ThirstVignette4", "ThirstVignette3", "ThirstVignette2", "ThirstVignette1");
+
+            dropsStatic = isStatic(drops[0]) && isStatic(drops[1]) && isStatic(drops[2]) && isStatic(drops[3]);
+            iceVignettesStatic = isStatic(iceVignettes);
+            fireVignettesStatic = isStatic(fireVignettes);
+            thirstVignettesStatic = isStatic(thirstVignettes);
+
+            temperatureTemplate = config.getString("CharacterOverrides.TemperatureActionbar", "");
+            thirstTemplate = config.getString("CharacterOverrides.ThirstActionbar", "");
+            temperatureThirstTemplate = config.getString("CharacterOverrides.TemperatureThirstActionbar", "");
+
+            for (int state = 0; state < 4; state++) {
+                Glyph[] stateDrops = drops[state];
+
+                if (stateDrops[EMPTY].translated() != null && stateDrops[HALF].translated() != null && stateDrops[FULL].translated() != null) {
+                    thirstBars[state] = new String[MAX_THIRST + 1];
+
+                    for (int thirst = 0; thirst <= MAX_THIRST; thirst++) {
+                        thirstBars[state][thirst] = buildThirstBar(stateDrops[EMPTY].translated(), stateDrops[HALF].translated(), stateDrops[FULL].translated(), thirst);
+                    }
+                }
+            }
+
+            if (temperaturesStatic && isStatic(temperatureTemplate)) {
+                temperatureActionbars = new String[MAX_TEMPERATURE + 1];
+
+                for (int temp = 0; temp <= MAX_TEMPERATURE; temp++) {
+                    temperatureActionbars[temp] = Utils.translateMsg(temperatureTemplate, null, Map.of("TEMP", temperatures[temp].translated()));
+                }
+            }
+            else {
+                temperatureActionbars = null;
+            }
+
+            for (int state = 0; state < 4; state++) {
+                String[] bars = thirstBars[state];
+
+                if (bars == null) {
+                    continue;
+                }
+
+                if (isStatic(thirstTemplate)) {
+                    thirstActionbars[state] = new String[MAX_THIRST + 1];
+
+                    for (int thirst = 0; thirst <= MAX_THIRST; thirst++) {
+                        thirstActionbars[state][thirst] = Utils.translateMsg(thirstTemplate, null, Map.of("THIRST", bars[thirst]));
+                    }
+                }
+
+                if (temperaturesStatic && isStatic(temperatureThirstTemplate)) {
+                    temperatureThirstActionbars[state] = new String[MAX_TEMPERATURE + 1][MAX_THIRST + 1];
+
+                    for (int temp = 0; temp <= MAX_TEMPERATURE; temp++) {
+                        for (int thirst = 0; thirst <= MAX_THIRST; thirst++) {
+                            temperatureThirstActionbars[state][temp][thirst] = Utils.translateMsg(temperatureThirstTemplate, null, Map.of("TEMP", temperatures[temp].translated(), "THIRST", bars[thirst]));
+                        }
+                    }
+                }
+            }
+        }
+
+        @Nonnull
+        private static Glyph[] readDrops(@Nonnull FileConfiguration config, @Nonnull String empty, @Nonnull String half, @Nonnull String full) {
+            Glyph[] drops = new Glyph[3];
+            drops[EMPTY] = Glyph.of(config.getString("CharacterOverrides." + empty));
+            drops[HALF] = Glyph.of(config.getString("CharacterOverrides." + half));
+            drops[FULL] = Glyph.of(config.getString("CharacterOverrides." + full));
+            return drops;
+        }
+
+        @Nonnull
+        private static Glyph[] readGlyphs(@Nonnull FileConfiguration config, @Nonnull String... names) {
+            Glyph[] glyphs = new Glyph[names.length];
+
+            for (int i = 0; i < names.length; i++) {
+                glyphs[i] = Glyph.of(config.getString("CharacterOverrides." + names[i]));
+            }
+            return glyphs;
+        }
+
+        private static boolean isStatic(@Nonnull Glyph[] glyphs) {
+            for (Glyph glyph : glyphs) {
+                if (glyph.translated() == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isStatic(@Nonnull String template) {
+            // anything left after the hud's own placeholders could be a player placeholder
+            return template.replace("%TEMP%", "").replace("%THIRST%", "").indexOf('%') == -1;
+        }
+    }
 }
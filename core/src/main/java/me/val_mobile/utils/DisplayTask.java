@@ -51,6 +51,13 @@ public class DisplayTask extends BukkitRunnable implements RSVTask {
     private final TanModule tanModule;
     private final IceFireModule ifModule;
     private final RealisticSeasons rs;
+    private final int tickPeriod;
+    private final int keepAliveTicks;
+    // what was sent last, so the hud is only sent again when it changes or is about to fade
+    private String lastActionbar = "";
+    private String lastTitle = "";
+    private int actionbarAge;
+    private int titleAge;
 
     public DisplayTask(RSVPlugin plugin, RSVPlayer player) {
         this.plugin = plugin;
@@ -64,6 +71,8 @@ public class DisplayTask extends BukkitRunnable implements RSVTask {
         this.characterValues = new CharacterValues();
         this.id = player.getPlayer().getUniqueId();
         this.rs = (RealisticSeasons) CompatiblePlugin.getPlugin(RealisticSeasons.NAME);
+        this.tickPeriod = tanConfig == null ? 5 : tanConfig.getInt("VisualTickPeriod");
+        this.keepAliveTicks = tanConfig == null ? 40 : tanConfig.getInt("HudKeepAliveTicks", 40);
         tasks.put(id, this);
     }
 
@@ -74,12 +83,16 @@ public class DisplayTask extends BukkitRunnable implements RSVTask {
         if (globalConditionsMet(player)) {
             String actionbarText = "";
             String titleText = "";
+            // the characters are already translated, only those with player placeholders are translated again when sent
+            boolean actionbarStatic = true;
+            boolean titleStatic = true;
 
             if (ifConfig != null && ifModule.getAllowedWorlds().contains(player.getWorld().getName())) {
                 if (!player.hasPermission("realisticsurvival.iceandfire.resistance.sirenvisual")) {
                     if (underSirenEffect) {
                         if (ifConfig.getBoolean("Siren.ChangeScreen.Enabled")) {
                             titleText += characterValues.getSirenView(player);
+                            titleStatic &= characterValues.isSirenViewStatic();
                         }
                     }
                 }
@@ -95,15 +108,18 @@ public class DisplayTask extends BukkitRunnable implements RSVTask {
 
                 if (tempManager.isTempEnabled(player) && thirstManager.isThirstEnabled(player)) {
                     actionbarText += characterValues.getTemperatureThirstActionbar(player, (int) Math.round(temperature), (int) Math.round(thirst), isUnderwater, parasitesActive);
+                    actionbarStatic = characterValues.isTemperatureThirstActionbarStatic();
                 }
                 else {
                     // only temperature is enabled
                     if (tempManager.isTempEnabled(player)) {
                         actionbarText += characterValues.getTemperatureOnlyActionbar(player, (int) Math.round(temperature));
+                        actionbarStatic = characterValues.isTemperatureOnlyActionbarStatic();
                     }
                     // only thirst is enabled
                     else {
                         actionbarText += characterValues.getThirstOnlyActionbar(player, (int) Math.round(thirst), isUnderwater, parasitesActive);
+                        actionbarStatic = characterValues.isThirstOnlyActionbarStatic();
                     }
                 }
 
@@ -115,6 +131,7 @@ public class DisplayTask extends BukkitRunnable implements RSVTask {
                             }
                             else {
                                 titleText += characterValues.getIceVignette(player, (int) Math.round(temperature));
+                                titleStatic &= characterValues.isIceVignetteStatic();
                             }
                         }
                     }
@@ -123,6 +140,7 @@ public class DisplayTask extends BukkitRunnable implements RSVTask {
                     if (tanConfig.getBoolean("Temperature.Hyperthermia.ScreenTinting") && !rs.disableHyperthermiaTinting()) {
                         if (!player.hasPermission("realisticsurvival.toughasnails.resistance.hot.visual")) {
                             titleText += characterValues.getFireVignette(player, (int) Math.round(temperature));
+                            titleStatic &= characterValues.isFireVignetteStatic();
                         }
                     }
                 }
@@ -131,18 +149,26 @@ public class DisplayTask extends BukkitRunnable implements RSVTask {
                     if (tanConfig.getBoolean("Thirst.Dehydration.ScreenTinting")) {
                         if (!player.hasPermission("realisticsurvival.toughasnails.resistance.thirst.visual")) {
                             titleText += characterValues.getThirstVignette(player, (int) Math.round(thirst));
+                            titleStatic &= characterValues.isThirstVignetteStatic();
                         }
                     }
                 }
             }
 
-            if (!actionbarText.isEmpty()) {
-                player.spigot().sendMessage(ChatMessageType.ACTION_BAR, new TextComponent(Utils.translateMsg(actionbarText, player, null)));
+            actionbarAge += tickPeriod;
+            titleAge += tickPeriod;
+
+            if (!actionbarText.isEmpty() && (!actionbarText.equals(lastActionbar) || actionbarAge >= keepAliveTicks)) {
+                player.spigot().sendMessage(ChatMessageType.ACTION_BAR, new TextComponent(actionbarStatic ? actionbarText : Utils.translateMsg(actionbarText, player, null)));
+                actionbarAge = 0;
             }
+            lastActionbar = actionbarText;
 
-            if (!titleText.isEmpty()) {
-                player.sendTitle(Utils.translateMsg(titleText, player, null), "", 0, 70, 0);
+            if (!titleText.isEmpty() && (!titleText.equals(lastTitle) || titleAge >= keepAliveTicks)) {
+                player.sendTitle(titleStatic ? titleText : Utils.translateMsg(titleText, player, null), "", 0, 70, 0);
+                titleAge = 0;
             }
+            lastTitle = titleText;
         }
         else {
             stop();
@@ -156,7 +182,6 @@ public class DisplayTask extends BukkitRunnable implements RSVTask {
 
     @Override
     public void start() {
-        int tickPeriod = tanConfig.getInt("VisualTickPeriod"); // get the tick period
         this.runTaskTimer(plugin, 0L, tickPeriod);
     }
 
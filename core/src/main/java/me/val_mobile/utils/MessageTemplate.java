@@ -0,0 +1,164 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.utils;
+
+import me.clip.placeholderapi.PlaceholderAPI;
+import me.val_mobile.integrations.CompatiblePlugin;
+import me.val_mobile.integrations.PAPI;
+import org.bukkit.ChatColor;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A message parsed once into literal text with its color codes applied and the placeholders between them, so
+ * rendering it only joins the segments. PlaceholderAPI only ever sees the message's own text, never the values
+ * the caller fills in, so a value such as a player's chat message cannot expand into other placeholders
+ */
+public final class MessageTemplate {
+
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("%(\\w+)%");
+    private static final int MAX_CACHED = 4096;
+    private static final Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+
+    // literals[i] comes before keys[i] and the last literal ends the message
+    private final String[] literals;
+    // the untranslated literal if it has a % that could still be a PlaceholderAPI placeholder, otherwise null
+    private final String[] papiLiterals;
+    private final String[] keys;
+    private final boolean papi;
+
+    private MessageTemplate(@Nonnull String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
+        int start = 0;
+
+        while (matcher.find()) {
+            literals.add(text.substring(start, matcher.start()));
+            keys.add(matcher.group(1));
+            start = matcher.end();
+        }
+        literals.add(text.substring(start));
+
+        String[] papiLiterals = new String[literals.size()];
+        boolean papi = false;
+
+        for (int i = 0; i < literals.size(); i++) {
+            String literal = literals.get(i);
+
+            if (literal.indexOf('%') != -1) {
+                papiLiterals[i] = literal;
+                papi = true;
+            }
+            literals.set(i, ChatColor.translateAlternateColorCodes('&', literal));
+        }
+
+        for (String key : keys) {
+            // PlaceholderAPI placeholders are always identifier_params
+            papi |= key.indexOf('_') != -1;
+        }
+
+        this.literals = literals.toArray(new String[0]);
+        this.papiLiterals = papiLiterals;
+        this.keys = keys.toArray(new String[0]);
+        this.papi = papi;
+    }
+
+    /**
+     * Gets the compiled template of a message, compiling it the first time it is used
+     * @param text The message
+     * @return The compiled template
+     */
+    @Nonnull
+    public static MessageTemplate compile(@Nonnull String text) {
+        MessageTemplate template = templates.get(text);
+
+        if (template == null) {
+            // messages are mostly config strings, but callers also translate text they built themselves
+            if (templates.size() >= MAX_CACHED) {
+                templates.clear();
+            }
+            template = new MessageTemplate(text);
+            templates.put(text, template);
+        }
+        return template;
+    }
+
+    /**
+     * Fills in the placeholders of the message. Like before templates were compiled, a placeholder PlaceholderAPI knows
+     * takes precedence over the caller's value of the same name
+     * @param sender The player PlaceholderAPI placeholders are filled in for
+     * @param placeholders The values of the message's own placeholders
+     * @return The translated message
+     */
+    @Nonnull
+    public String render(@Nullable CommandSender sender, @Nullable Map<String, Object> placeholders) {
+        boolean papi = this.papi && CompatiblePlugin.isIntegrated(PAPI.NAME);
+
+        if (keys.length == 0 && !papi) {
+            return literals[0];
+        }
+
+        OfflinePlayer player = sender instanceof OfflinePlayer offlinePlayer ? offlinePlayer : null;
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < keys.length; i++) {
+            appendLiteral(builder, i, papi, player);
+
+            String key = keys[i];
+            String placeholder = '%' + key + '%';
+
+            if (papi && key.indexOf('_') != -1) {
+                String value = PlaceholderAPI.setPlaceholders(player, placeholder);
+
+                if (!value.equals(placeholder)) {
+                    builder.append(ChatColor.translateAlternateColorCodes('&', value));
+                    continue;
+                }
+            }
+
+            if (placeholders != null && placeholders.containsKey(key)) {
+                String value = String.valueOf(placeholders.get(key));
+                builder.append(value.indexOf('&') == -1 ? value : ChatColor.translateAlternateColorCodes('&', value));
+            }
+            else {
+                builder.append(placeholder);
+            }
+        }
+        appendLiteral(builder, keys.length, papi, player);
+
+        return builder.toString();
+    }
+
+    private void appendLiteral(@Nonnull StringBuilder builder, int index, boolean papi, @Nullable OfflinePlayer player) {
+        if (papi && papiLiterals[index] != null) {
+            builder.append(ChatColor.translateAlternateColorCodes('&', PlaceholderAPI.setPlaceholders(player, papiLiterals[index])));
+        }
+        else {
+            builder.append(literals[index]);
+        }
+    }
+}
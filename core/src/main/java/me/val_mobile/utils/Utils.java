@@ -16,12 +16,9 @@
  */
 package me.val_mobile.utils;
 
-import me.clip.placeholderapi.PlaceholderAPI;
 import me.val_mobile.baubles.EndermanAlly;
 import me.val_mobile.data.RSVModule;
 import me.val_mobile.iceandfire.*;
-import me.val_mobile.integrations.CompatiblePlugin;
-import me.val_mobile.integrations.PAPI;
 import me.val_mobile.rsv.RSVPlugin;
 import me.val_mobile.spartanweaponry.KbTask;
 import me.val_mobile.utils.ToolHandler.Tool;
@@ -86,62 +83,17 @@ public class Utils {
         this.plugin = plugin;
     }
 
-    @Nonnull
-    private static String format(@Nonnull String text, @Nonnull Map<String, Object> placeholders) {
-        StringBuilder newTemplate = new StringBuilder(text);
-        List<Object> valueList = new ArrayList<>();
-
-        Matcher matcher = Pattern.compile("%(\\w+)%").matcher(text);
-
-        while (matcher.find()) {
-            String key = matcher.group(1);
-
-            String paramName = "%" + key + "%";
-            int index = newTemplate.indexOf(paramName);
-            if (index != -1) {
-                newTemplate.replace(index, index + paramName.length(), "%s");
-                valueList.add(placeholders.get(key));
-            }
-        }
-
-        return String.format(newTemplate.toString(), valueList.toArray());
-    }
-
     @Nonnull
     public static String translateMsg(@Nonnull String text, @Nullable CommandSender sender, @Nullable Map<String, Object> placeholders) {
-        String translatedText = text;
-
-        if (CompatiblePlugin.isIntegrated(PAPI.NAME)) {
-            translatedText = PlaceholderAPI.setPlaceholders(sender instanceof Player ? (Player) sender : (sender instanceof OfflinePlayer ? (OfflinePlayer) sender : null), translatedText);
-        }
-
-        if (placeholders != null) {
-            translatedText = format(translatedText, placeholders);
-        }
-
-        return ChatColor.translateAlternateColorCodes('&', translatedText);
+        return MessageTemplate.compile(text).render(sender, placeholders);
     }
 
     @Nonnull
     public static List<String> translateMsgs(@Nonnull List<String> texts, @Nullable CommandSender sender, @Nullable Map<String, Object> placeholders) {
-        List<String> translated = new ArrayList<>(texts);
-
-        String temp;
-
-        if (CompatiblePlugin.isIntegrated(PAPI.NAME)) {
-            translated = PlaceholderAPI.setPlaceholders(sender instanceof Player ? (Player) sender : (sender instanceof OfflinePlayer ? (OfflinePlayer) sender : null), translated);
-        }
-
-        for (int i = 0; i < translated.size(); i++) {
-            temp = translated.get(i);
-
-            if (placeholders != null) {
-                temp = format(temp, placeholders);
-            }
-
-            temp = ChatColor.translateAlternateColorCodes('&', temp);
+        List<String> translated = new ArrayList<>(texts.size());
 
-            translated.set(i, temp);
+        for (String text : texts) {
+            translated.add(translateMsg(text, sender, placeholders));
         }
 
         return translated;
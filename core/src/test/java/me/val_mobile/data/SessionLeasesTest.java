@@ -0,0 +1,154 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several "servers" against one local folder that stands in for the shared data folder
+ */
+public class SessionLeasesTest {
+
+    private static final Logger LOGGER = Logger.getLogger(SessionLeasesTest.class.getName());
+
+    @TempDir
+    File directory;
+
+    private SessionLeases server(String serverId, long timeoutMillis) {
+        return new SessionLeases(directory, serverId, true, timeoutMillis, LOGGER);
+    }
+
+    private String owner(UUID id) throws IOException {
+        Path path = new File(directory, id + ".lease").toPath();
+        return Files.exists(path) ? Files.readString(path, StandardCharsets.UTF_8).trim() : null;
+    }
+
+    @Test
+    public void test_handoff_waits_for_release() throws Exception {
+        SessionLeases first = server("first", 5000);
+        SessionLeases second = server("second", 5000);
+        UUID id = UUID.randomUUID();
+
+        assertTrue(first.acquire(id));
+        assertEquals("first", owner(id));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> handoff = executor.submit(() -> second.acquire(id));
+
+            Thread.sleep(200);
+            assertFalse(handoff.isDone());
+
+            first.release(id);
+            assertTrue(handoff.get(5, TimeUnit.SECONDS));
+            assertEquals("second", owner(id));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_takeover_is_not_released_by_old_owner() throws Exception {
+        SessionLeases first = server("first", 0);
+        SessionLeases second = server("second", 0);
+        UUID id = UUID.randomUUID();
+
+        assertTrue(first.acquire(id));
+        assertFalse(second.acquire(id));
+        assertEquals("second", owner(id));
+
+        first.release(id);
+        assertEquals("second", owner(id));
+
+        second.release(id);
+        assertNull(owner(id));
+    }
+
+    @Test
+    public void test_reacquire_own_lease() throws Exception {
+        SessionLeases first = server("first", 0);
+        UUID id = UUID.randomUUID();
+
+        assertTrue(first.acquire(id));
+        assertTrue(first.acquire(id));
+        assertEquals("first", owner(id));
+    }
+
+    @Test
+    public void test_only_one_server_holds_a_lease() throws Exception {
+        int servers = 8;
+        int rounds = 10;
+        UUID id = UUID.randomUUID();
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(servers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < servers; i++) {
+                SessionLeases leases = server("server-" + i, 60000);
+
+                futures.add(executor.submit(() -> {
+                    start.await();
+
+                    for (int round = 0; round < rounds; round++) {
+                        assertTrue(leases.acquire(id));
+
+                        if (holders.incrementAndGet() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        Thread.sleep(2);
+                        holders.decrementAndGet();
+
+                        leases.release(id);
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, overlaps.get());
+        assertNull(owner(id));
+
+        String[] leftovers = directory.list();
+        assertNotNull(leftovers);
+        assertEquals(0, leftovers.length);
+    }
+}
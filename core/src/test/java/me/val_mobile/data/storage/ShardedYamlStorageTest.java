@@ -0,0 +1,128 @@
+/*
+    Copyright (C) 2024  Val_Mobile
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package me.val_mobile.data.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two "servers" against one local folder that stands in for the shared data folder
+ */
+public class ShardedYamlStorageTest {
+
+    @TempDir
+    File directory;
+
+    private record TestRecord(@Nonnull UUID id, int value) implements PlayerRecord {}
+
+    private static final RecordCodec<TestRecord> CODEC = new RecordCodec<>() {
+        @Override
+        public void write(@Nonnull TestRecord record, @Nonnull ConfigurationSection section) {
+            section.set("Value", record.value());
+        }
+
+        @Nonnull
+        @Override
+        public TestRecord read(@Nonnull UUID id, @Nonnull ConfigurationSection section) {
+            return new TestRecord(id, section.getInt("Value"));
+        }
+    };
+
+    private ShardedYamlStorage<TestRecord> server() {
+        return new ShardedYamlStorage<>(directory, CODEC);
+    }
+
+    @Test
+    public void test_save_after_load_goes_through() {
+        ShardedYamlStorage<TestRecord> first = server();
+        ShardedYamlStorage<TestRecord> second = server();
+        UUID id = UUID.randomUUID();
+
+        assertTrue(first.save(List.of(new TestRecord(id, 1))).isEmpty());
+        assertEquals(1, first.getVersion(id));
+
+        assertEquals(1, second.load(id).value());
+        assertTrue(second.save(List.of(new TestRecord(id, 2))).isEmpty());
+        assertEquals(2, second.getVersion(id));
+        assertEquals(2, first.load(id).value());
+    }
+
+    @Test
+    public void test_stale_save_is_reported() {
+        ShardedYamlStorage<TestRecord> first = server();
+        ShardedYamlStorage<TestRecord> second = server();
+        UUID id = UUID.randomUUID();
+
+        first.save(List.of(new TestRecord(id, 1)));
+        second.load(id);
+        second.save(List.of(new TestRecord(id, 2)));
+
+        assertFalse(first.isUpToDate(id));
+        Set<UUID> conflicts = first.save(List.of(new TestRecord(id, 3)));
+        assertEquals(Set.of(id), conflicts);
+        assertEquals(2, second.load(id).value());
+
+        // reading the player again makes the first server own their data again
+        assertEquals(2, first.load(id).value());
+        assertTrue(first.save(List.of(new TestRecord(id, 4))).isEmpty());
+        assertEquals(4, second.load(id).value());
+    }
+
+    @Test
+    public void test_conflict_does_not_block_other_players() {
+        ShardedYamlStorage<TestRecord> first = server();
+        ShardedYamlStorage<TestRecord> second = server();
+        UUID stale = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+
+        first.save(List.of(new TestRecord(stale, 1)));
+        second.load(stale);
+        second.save(List.of(new TestRecord(stale, 2)));
+
+        Set<UUID> conflicts = first.save(List.of(new TestRecord(stale, 3), new TestRecord(fresh, 3)));
+        assertEquals(Set.of(stale), conflicts);
+        assertEquals(3, second.load(fresh).value());
+    }
+
+    @Test
+    public void test_expected_version_refuses_replaced_record() {
+        ShardedYamlStorage<TestRecord> first = server();
+        ShardedYamlStorage<TestRecord> second = server();
+        UUID id = UUID.randomUUID();
+
+        first.save(List.of(new TestRecord(id, 1)));
+        first.release(id);
+        assertEquals(-1, first.getVersion(id));
+
+        second.load(id);
+        second.save(List.of(new TestRecord(id, 2)));
+
+        // a record journaled at version 1 is older than what the second server saved since
+        first.expectVersion(id, 1);
+        assertEquals(Set.of(id), first.save(List.of(new TestRecord(id, 1))));
+        assertEquals(2, second.load(id).value());
+    }
+}